@@ -1,5 +1,7 @@
 // Required imports for algorithm program
 import java.awt.Color;
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
@@ -15,6 +17,15 @@ public class Algorithm {
 	// Delay time in milliseconds used to visualize search progress
     private int searchtime = 100;
 
+    // Landmark tables of the last maze searched with ALT, reused while the layout is unchanged
+    private Landmarks landmarks;
+
+    // Working arrays of the Grid based searches, reused from one search to the next
+    private final ScratchArena arena = new ScratchArena();
+
+    // Anytime search of the last maze layout, kept so its working arrays are reused
+    private AnytimeSearch anytime;
+
     public int getSearchTime() {
         return searchtime;
     }
@@ -84,9 +95,11 @@ public class Algorithm {
     public void bfs(Node start, Node end, int graphWidth, int graphHeight) {
         Queue<Node> queue = new LinkedList<>();
         Node[][] prev = new Node[graphWidth][graphHeight];
+        boolean[][] visited = new boolean[graphWidth][graphHeight]; // Marked on enqueue, so each node is queued once
         long startTime = System.currentTimeMillis(); // Start timing the search
 
         queue.add(start);
+        visited[start.getX()][start.getY()] = true;
         while (!queue.isEmpty()) {
             Node curNode = queue.poll();
             
@@ -108,8 +121,11 @@ public class Algorithm {
                 curNode.setColor(Color.BLUE); // Mark as explored
                 
                 for (Node adjacent : curNode.getNeighbours()) {
-                    queue.add(adjacent);
-                    prev[adjacent.getX()][adjacent.getY()] = curNode; // Store path
+                    if (!visited[adjacent.getX()][adjacent.getY()]) {
+                        visited[adjacent.getX()][adjacent.getY()] = true;
+                        queue.add(adjacent);
+                        prev[adjacent.getX()][adjacent.getY()] = curNode; // Store path
+                    }
                 }
             }
         }
@@ -177,6 +193,231 @@ public class Algorithm {
         shortpath(prev, targetNode); // Highlight the optimal path found
     }
 
+    /**
+     * Dead-end filling on the current board.
+     * Repeatedly removes open cells with a single way in until only cells that can lie
+     * on a start-end path remain.
+     * Visualization: Dark gray = filled dead end
+     */
+    public void deadEndFill(Node[][] nodes) {
+        long startTime = System.currentTimeMillis();
+        Grid grid = Grid.fromNodes(nodes);
+        JunctionGraph graph = JunctionGraph.build(grid, true);
+        long endTime = System.currentTimeMillis();
+        System.out.println("Dead-end filling Runtime: " + (endTime - startTime) + " ms");
+
+        for (int cell = 0; cell < grid.cells(); cell++) {
+            if (graph.isFilled(cell)) {
+                nodes[grid.x(cell)][grid.y(cell)].setColor(Color.DARK_GRAY);
+            }
+        }
+    }
+
+    /**
+     * Corridor contraction search from start node to end node.
+     * Corridors are collapsed into weighted edges between junctions, dead ends are filled,
+     * and Dijkstra runs on the junction graph. The result is expanded back to cells.
+     * Visualization: Dark gray = filled dead end, Blue = junction, Magenta = Target found
+     */
+    public void junctionSearch(Node[][] nodes) {
+        long startTime = System.currentTimeMillis();
+        Grid grid = Grid.fromNodes(nodes);
+        JunctionGraph graph = JunctionGraph.build(grid, true);
+        SearchResult result = graph.solve(false);
+        long endTime = System.currentTimeMillis();
+        System.out.println("Junction Graph Runtime: " + (endTime - startTime) + " ms");
+        System.out.println("Junctions: " + graph.junctionCount() + ", open cells: " + grid.openCells()
+                + String.format(" (%.1fx smaller)", graph.compressionRatio()));
+
+        for (int cell = 0; cell < grid.cells(); cell++) {
+            Node node = nodes[grid.x(cell)][grid.y(cell)];
+            if (graph.isFilled(cell)) {
+                node.setColor(Color.DARK_GRAY);
+            } else if (graph.isJunction(cell) && node.isPath() && !node.isEnd()) {
+                node.setColor(Color.BLUE);
+            }
+        }
+
+        if (!result.isFound()) {
+            System.out.println("Junction Graph: no path");
+        }
+        showPath(nodes, grid, result);
+    }
+
+    /**
+     * Weighted search from start node to end node over terrain costs (1 = normal, 4-9 = terrain).
+     * Uses Dijkstra, or A* with a weight-aware Manhattan heuristic, on a bucket (Dial) queue.
+     * Visualization: Orange = path, Magenta = Target found
+     */
+    public void weightedSearch(Node[][] nodes, boolean useHeuristic) {
+        long startTime = System.currentTimeMillis();
+        Grid grid = Grid.fromNodes(nodes);
+        SearchResult result = WeightedSearch.search(grid, grid.getStart(), grid.getTarget(),
+                useHeuristic ? Heuristic.manhattan(grid) : Heuristic.none(), arena);
+        long endTime = System.currentTimeMillis();
+        String name = useHeuristic ? "Weighted A*" : "Dijkstra";
+        System.out.println(name + " Runtime: " + (endTime - startTime) + " ms, " + result);
+        showPath(nodes, grid, result);
+    }
+
+    /**
+     * A* with the ALT (landmark) heuristic from start node to end node.
+     * Landmark tables are reused while the maze layout is unchanged and, while the board
+     * still matches the file it came from, persisted next to it so later sessions skip the preprocessing.
+     * Visualization: Orange = path, Magenta = Target found
+     */
+    public void altSearch(Node[][] nodes, File mazeFile) {
+        long startTime = System.currentTimeMillis();
+        Grid grid = Grid.fromNodes(nodes);
+        if (landmarks == null || !landmarks.matches(grid)) {
+            landmarks = matchesFile(grid, mazeFile) ? Landmarks.loadOrCompute(grid, mazeFile, Landmarks.DEFAULT_COUNT)
+                    : Landmarks.compute(grid, Landmarks.DEFAULT_COUNT);
+        }
+        long prepTime = System.currentTimeMillis();
+        SearchResult result = WeightedSearch.search(grid, grid.getStart(), grid.getTarget(), landmarks, arena);
+        long endTime = System.currentTimeMillis();
+        System.out.println("ALT Preprocessing: " + (prepTime - startTime) + " ms");
+        System.out.println("ALT A* Runtime: " + (endTime - prepTime) + " ms, " + result);
+        showPath(nodes, grid, result);
+    }
+
+    // True if the board has the layout saved in mazeFile; an edited board must not overwrite its tables
+    private static boolean matchesFile(Grid grid, File mazeFile) {
+        if (mazeFile == null) return false;
+        try {
+            return Grid.load(mazeFile).contentHash() == grid.contentHash();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Flow field from the end node: one backwards search gives every cell its distance and
+     * next step towards the end, and the start's path is read off the field.
+     * The field is cached per maze layout and end node and returned so it can be drawn as a heatmap.
+     * Visualization: Orange = path, Magenta = Target found
+     */
+    public FlowField flowField(Node[][] nodes) {
+        long startTime = System.currentTimeMillis();
+        Grid grid = Grid.fromNodes(nodes);
+        FlowField field = FlowField.forTarget(grid, grid.getTarget());
+        SearchResult result = field.path(grid.getStart());
+        long endTime = System.currentTimeMillis();
+        System.out.println("Flow Field Runtime: " + (endTime - startTime) + " ms, " + result);
+        showPath(nodes, grid, result);
+        return field;
+    }
+
+    /**
+     * Stack-safe depth-first search from start node to end node.
+     * Visits nodes in the same order as the recursive DFS of Algorithm2, but with an explicit
+     * int stack and a visited bitset so it also runs on mazes far too large for recursion.
+     * Visualization: Blue = Explored, Orange = path, Magenta = Target found
+     */
+    public void iterativeDfs(Node[][] nodes) {
+        long startTime = System.currentTimeMillis();
+        Grid grid = Grid.fromNodes(nodes);
+        IntList visits = new IntList();
+        SearchResult result = new IterativeDfs(grid).dfs(grid.getStart(), grid.getTarget(), visits, arena);
+        long endTime = System.currentTimeMillis();
+        System.out.println("Iterative DFS Runtime: " + (endTime - startTime) + " ms, " + result);
+
+        // Replay the visit order
+        for (int i = 1; i < visits.size(); i++) {
+            Node node = nodes[grid.x(visits.get(i))][grid.y(visits.get(i))];
+            if (node.isEnd()) break;
+            node.setColor(Color.BLUE);
+            try {
+                Thread.sleep(searchtime);
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+        showPath(nodes, grid, result);
+    }
+
+    /**
+     * Lets AlgorithmSelector profile the maze and runs the solver it expects to be fastest,
+     * logging the choice and the reason for it.
+     * Returns the flow field when that was the choice (for the heatmap), else null.
+     */
+    public FlowField autoSearch(Node[][] nodes, File mazeFile) {
+        Grid grid = Grid.fromNodes(nodes);
+        AlgorithmSelector.Choice choice = AlgorithmSelector.choose(grid, mazeFile);
+        System.out.println(choice);
+        switch (choice.getAlgorithm()) {
+        case GridView.FLOW_FIELD:
+            return flowField(nodes);
+        case GridView.ALT:
+            altSearch(nodes, mazeFile);
+            break;
+        case GridView.DIJKSTRA:
+            weightedSearch(nodes, false);
+            break;
+        case GridView.BFS:
+            long startTime = System.currentTimeMillis();
+            SearchResult result = ParallelBfs.solve(grid);
+            long endTime = System.currentTimeMillis();
+            System.out.println("BFS Runtime: " + (endTime - startTime) + " ms, " + result);
+            showPath(nodes, grid, result);
+            break;
+        default:
+            weightedSearch(nodes, true);
+            break;
+        }
+        return null;
+    }
+
+    /**
+     * Anytime (ARA*) search from start node to end node that stops after budgetMillis.
+     * Shows the best path found with its suboptimality bound, or the path to the closest
+     * reached cell if the end node was not reached in time.
+     * Visualization: Orange = path, Magenta = Target found, Pink = closest cell reached
+     */
+    public void anytimeSearch(Node[][] nodes, long budgetMillis) {
+        long startTime = System.currentTimeMillis();
+        Grid grid = Grid.fromNodes(nodes);
+        if (anytime == null || anytime.getGrid().contentHash() != grid.contentHash()) {
+            anytime = new AnytimeSearch(grid);
+        }
+        AnytimeSearch.Result result = anytime.search(grid.getStart(), grid.getTarget(),
+                System.nanoTime() + budgetMillis * 1_000_000L, Long.MAX_VALUE);
+        long endTime = System.currentTimeMillis();
+        if (!result.getResult().isFound()) {
+            System.out.println("Anytime A*: no start/end");
+            return;
+        }
+        System.out.println("Anytime A* Runtime: " + (endTime - startTime) + " ms (budget " + budgetMillis + " ms), "
+                + result);
+        showPath(nodes, grid, result.getResult());
+        if (!result.reachedTarget()) {
+            int[] path = result.getResult().getPath();
+            int closest = path[path.length - 1];
+            if (closest != grid.getStart()) {
+                nodes[grid.x(closest)][grid.y(closest)].setColor(Color.PINK);
+            }
+        }
+    }
+
+    /**
+     * Colors a headless search result onto the board, walking back from the end node.
+     */
+    private void showPath(Node[][] nodes, Grid grid, SearchResult result) {
+        if (!result.isFound()) {
+            return;
+        }
+        int[] path = result.getPath();
+        nodes[grid.x(path[path.length - 1])][grid.y(path[path.length - 1])].setColor(Color.MAGENTA);
+        for (int i = path.length - 2; i > 0; i--) {
+            nodes[grid.x(path[i])][grid.y(path[i])].setColor(Color.ORANGE);
+            try {
+                Thread.sleep(searchtime);
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
     /**
      * Helper method to find the node with the lowest f(n) = g(n) = h(n)
      * from the list of candidates (open list).
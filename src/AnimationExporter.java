@@ -0,0 +1,436 @@
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.IndexColorModel;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.ImageOutputStream;
+
+/**
+ * Headless export of a search animation (no window, no searchtime sleeps).
+ * Takes a maze and a solver trace (cells in the order the solver visited them) plus the path found, and
+ * writes numbered PNG frames or one animated GIF. Colors are the same as on the board: blue = explored,
+ * orange = path, magenta = target found.
+ *
+ * Frames are drawn straight into 8-bit indexed rasters. They are produced in batches: each worker of the
+ * fork-join pool takes a run of consecutive frames, starts from a copy of the batch's first state and only
+ * paints the cells added since its previous frame. PNG frames are also encoded by the workers;
+ * GIF frames have to go through the single writer in order.
+ */
+public class AnimationExporter {
+
+	// Palette indices
+	private static final byte WHITE = 0;
+	private static final byte BLACK = 1;
+	private static final byte OPEN = 2;
+	private static final byte EXPLORED = 3;
+	private static final byte PATH = 4;
+	private static final byte START = 5;
+	private static final byte END = 6;
+	private static final byte FOUND = 7;
+	private static final int GRAYS = 8;		// 8 gray levels for blocks of cells (wall density) start here
+	private static final Color[] COLORS = { Color.WHITE, Color.BLACK, Color.LIGHT_GRAY, Color.BLUE, Color.ORANGE,
+			Color.GREEN, Color.RED, Color.MAGENTA };
+	private static final IndexColorModel PALETTE = palette();
+
+	private final Grid grid;
+	private final int[] visits;		// Solver trace, in visit order
+	private final int[] path;		// Path found (empty if none)
+	private int frameCount = 250;
+	private int frameDelay = 40;	// Milliseconds per frame
+	private int maxSize = 1024;		// Largest image side in pixels
+	private ForkJoinPool pool = ForkJoinPool.commonPool();
+
+	// Image layout: a cell is cellPixels wide, or a pixel covers block x block cells
+	private int cellPixels;
+	private int block;
+	private int imageWidth;
+	private int imageHeight;
+
+	public AnimationExporter(Grid grid, IntList visits, SearchResult result) {
+		this.grid = grid;
+		this.visits = visits.toArray();
+		this.path = result.isFound() ? result.getPath() : new int[0];
+	}
+
+	public AnimationExporter setFrameCount(int frameCount) {
+		this.frameCount = Math.max(2, frameCount);
+		return this;
+	}
+
+	public AnimationExporter setFrameDelay(int frameDelay) {
+		this.frameDelay = frameDelay;
+		return this;
+	}
+
+	public AnimationExporter setMaxSize(int maxSize) {
+		this.maxSize = maxSize;
+		return this;
+	}
+
+	public AnimationExporter setPool(ForkJoinPool pool) {
+		this.pool = pool;
+		return this;
+	}
+
+	/**
+	 * Writes frame_00000.png, frame_00001.png, ... into directory (created if needed).
+	 */
+	public void writeFrames(File directory) throws IOException {
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new IOException("Can't create " + directory);
+		}
+		render(new FrameSink() {
+			public boolean inWorker() {
+				return true;
+			}
+
+			public void accept(int frame, BufferedImage image) throws IOException {
+				ImageIO.write(image, "png", new File(directory, String.format("frame_%05d.png", frame)));
+			}
+		});
+	}
+
+	/**
+	 * Writes an animated GIF that loops forever.
+	 */
+	public void writeGif(File file) throws IOException {
+		ImageWriter writer = ImageIO.getImageWritersByFormatName("gif").next();
+		file.delete();
+		try (ImageOutputStream out = ImageIO.createImageOutputStream(file)) {
+			writer.setOutput(out);
+			writer.prepareWriteSequence(null);
+			IIOMetadata metadata = gifMetadata(writer);
+			render(new FrameSink() {
+				public boolean inWorker() {
+					return false;
+				}
+
+				public void accept(int frame, BufferedImage image) throws IOException {
+					writer.writeToSequence(new IIOImage(image, null, metadata), null);
+				}
+			});
+			writer.endWriteSequence();
+		} finally {
+			writer.dispose();
+		}
+	}
+
+	// Frame delay and looping, set through the GIF metadata tree
+	private IIOMetadata gifMetadata(ImageWriter writer) throws IOException {
+		ImageWriteParam param = writer.getDefaultWriteParam();
+		IIOMetadata metadata = writer.getDefaultImageMetadata(ImageTypeSpecifier.createFromRenderedImage(
+				new BufferedImage(1, 1, BufferedImage.TYPE_BYTE_INDEXED, PALETTE)), param);
+		String format = metadata.getNativeMetadataFormatName();
+		IIOMetadataNode root = (IIOMetadataNode) metadata.getAsTree(format);
+
+		IIOMetadataNode control = child(root, "GraphicControlExtension");
+		control.setAttribute("disposalMethod", "none");
+		control.setAttribute("userInputFlag", "FALSE");
+		control.setAttribute("transparentColorFlag", "FALSE");
+		control.setAttribute("delayTime", Integer.toString(Math.max(1, frameDelay / 10)));
+		control.setAttribute("transparentColorIndex", "0");
+
+		IIOMetadataNode loop = new IIOMetadataNode("ApplicationExtension");
+		loop.setAttribute("applicationID", "NETSCAPE");
+		loop.setAttribute("authenticationCode", "2.0");
+		loop.setUserObject(new byte[] { 1, 0, 0 }); // Loop count 0 = forever
+		child(root, "ApplicationExtensions").appendChild(loop);
+
+		metadata.setFromTree(format, root);
+		return metadata;
+	}
+
+	private static IIOMetadataNode child(IIOMetadataNode parent, String name) {
+		for (int i = 0; i < parent.getLength(); i++) {
+			if (parent.item(i).getNodeName().equals(name)) {
+				return (IIOMetadataNode) parent.item(i);
+			}
+		}
+		IIOMetadataNode node = new IIOMetadataNode(name);
+		parent.appendChild(node);
+		return node;
+	}
+
+	// Receives finished frames, either on the worker that drew them or in frame order on the caller
+	private interface FrameSink {
+		boolean inWorker();
+
+		void accept(int frame, BufferedImage image) throws IOException;
+	}
+
+	/**
+	 * Draws every frame. The trace is spread over the first 90% of the frames, the rest walk the
+	 * path back from the target (like the board animation).
+	 */
+	private void render(FrameSink sink) throws IOException {
+		layout();
+		byte[] base = baseImage();
+		int workers = pool.getParallelism();
+		int batch = workers * 4;
+
+		byte[] state = base.clone(); // Pixels after the last frame of the previous batch
+		int stateSteps = 0;
+		for (int first = 0; first < frameCount; first += batch) {
+			int last = Math.min(frameCount, first + batch);
+			int runLength = (last - first + workers - 1) / workers;
+			List<Callable<List<BufferedImage>>> runs = new ArrayList<>();
+			for (int runStart = first; runStart < last; runStart += runLength) {
+				int from = runStart;
+				int to = Math.min(last, runStart + runLength);
+				byte[] start = state;
+				int startSteps = stateSteps;
+				runs.add(new Callable<List<BufferedImage>>() {
+					public List<BufferedImage> call() throws IOException {
+						return renderRun(start, startSteps, from, to, sink);
+					}
+				});
+			}
+
+			List<Future<List<BufferedImage>>> done = pool.invokeAll(runs);
+			int frame = first;
+			for (Future<List<BufferedImage>> future : done) {
+				for (BufferedImage image : result(future)) {
+					if (!sink.inWorker()) {
+						sink.accept(frame, image);
+					}
+					frame++;
+				}
+			}
+			// Advance the shared state to the end of the batch
+			state = state.clone();
+			stateSteps = paintSteps(state, stateSteps, stepsAt(last - 1));
+		}
+	}
+
+	private static List<BufferedImage> result(Future<List<BufferedImage>> future) throws IOException {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Export interrupted", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+
+	// Frames [from, to) of one worker, painted incrementally on a copy of the start state
+	private List<BufferedImage> renderRun(byte[] start, int startSteps, int from, int to, FrameSink sink)
+			throws IOException {
+		byte[] pixels = start.clone();
+		int steps = startSteps;
+		List<BufferedImage> images = new ArrayList<>();
+		for (int frame = from; frame < to; frame++) {
+			steps = paintSteps(pixels, steps, stepsAt(frame));
+			BufferedImage image = new BufferedImage(imageWidth, imageHeight, BufferedImage.TYPE_BYTE_INDEXED, PALETTE);
+			byte[] data = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+			System.arraycopy(pixels, 0, data, 0, data.length);
+			if (sink.inWorker()) {
+				sink.accept(frame, image);
+			} else {
+				images.add(image);
+			}
+		}
+		return images;
+	}
+
+	/**
+	 * Animation steps shown by a frame. A step is one trace cell, then one path cell (from the target back).
+	 */
+	private int stepsAt(int frame) {
+		int pathFrames = path.length == 0 ? 0 : Math.max(1, frameCount / 10);
+		int searchFrames = frameCount - pathFrames;
+		if (frame < searchFrames) {
+			return (int) ((long) visits.length * (frame + 1) / searchFrames);
+		}
+		return visits.length + (int) ((long) path.length * (frame - searchFrames + 1) / pathFrames);
+	}
+
+	// Paints steps [from, to) and returns to
+	private int paintSteps(byte[] pixels, int from, int to) {
+		int start = grid.getStart();
+		int target = grid.getTarget();
+		for (int step = from; step < to; step++) {
+			if (step < visits.length) {
+				int cell = visits[step];
+				if (cell != start && cell != target) {
+					paint(pixels, cell, EXPLORED);
+				}
+			} else {
+				int i = path.length - 1 - (step - visits.length);
+				int cell = path[i];
+				if (cell == target) {
+					paint(pixels, cell, FOUND);
+				} else if (cell != start) {
+					paint(pixels, cell, PATH);
+				}
+			}
+		}
+		return to;
+	}
+
+	private void paint(byte[] pixels, int cell, byte color) {
+		int x = grid.x(cell);
+		int y = grid.y(cell);
+		if (cellPixels == 1) {
+			pixels[(y / block) * imageWidth + x / block] = color;
+			return;
+		}
+		// Leave a one pixel border like the board when cells are big enough
+		int inset = cellPixels >= 4 ? 1 : 0;
+		for (int py = y * cellPixels + inset; py < (y + 1) * cellPixels; py++) {
+			Arrays.fill(pixels, py * imageWidth + x * cellPixels + inset, py * imageWidth + (x + 1) * cellPixels, color);
+		}
+	}
+
+	private void layout() {
+		int side = Math.max(grid.getWidth(), grid.getHeight());
+		if (side <= maxSize) {
+			cellPixels = Math.max(1, Math.min(16, maxSize / side));
+			block = 1;
+			imageWidth = grid.getWidth() * cellPixels;
+			imageHeight = grid.getHeight() * cellPixels;
+		} else {
+			cellPixels = 1;
+			block = (side + maxSize - 1) / maxSize;
+			imageWidth = (grid.getWidth() + block - 1) / block;
+			imageHeight = (grid.getHeight() + block - 1) / block;
+		}
+	}
+
+	// First frame: walls (or wall density per block), start and end
+	private byte[] baseImage() {
+		byte[] pixels = new byte[imageWidth * imageHeight];
+		if (cellPixels > 1) {
+			Arrays.fill(pixels, BLACK); // Grid lines
+			for (int cell = 0; cell < grid.cells(); cell++) {
+				paint(pixels, cell, grid.isWall(cell) ? BLACK : OPEN);
+			}
+		} else {
+			for (int py = 0; py < imageHeight; py++) {
+				for (int px = 0; px < imageWidth; px++) {
+					int walls = 0;
+					int total = 0;
+					for (int y = py * block; y < Math.min(grid.getHeight(), (py + 1) * block); y++) {
+						for (int x = px * block; x < Math.min(grid.getWidth(), (px + 1) * block); x++) {
+							if (grid.isWall(grid.index(x, y))) walls++;
+							total++;
+						}
+					}
+					int open = total - walls;
+					pixels[py * imageWidth + px] = block == 1 ? (walls > 0 ? BLACK : OPEN)
+							: (byte) (GRAYS + open * 7 / total);
+				}
+			}
+		}
+		if (grid.getStart() >= 0) paint(pixels, grid.getStart(), START);
+		if (grid.getTarget() >= 0) paint(pixels, grid.getTarget(), END);
+		return pixels;
+	}
+
+	private static IndexColorModel palette() {
+		int size = GRAYS + 8;
+		byte[] r = new byte[size];
+		byte[] g = new byte[size];
+		byte[] b = new byte[size];
+		for (int i = 0; i < COLORS.length; i++) {
+			r[i] = (byte) COLORS[i].getRed();
+			g[i] = (byte) COLORS[i].getGreen();
+			b[i] = (byte) COLORS[i].getBlue();
+		}
+		for (int i = 0; i < 8; i++) {
+			int level = Color.LIGHT_GRAY.getRed() * i / 7; // All walls = black ... all open = light gray
+			r[GRAYS + i] = g[GRAYS + i] = b[GRAYS + i] = (byte) level;
+		}
+		return new IndexColorModel(8, size, r, g, b);
+	}
+
+	/**
+	 * Solver trace for the exporter: "dfs" is the iterative DFS visit order,
+	 * "bfs" the BFS order (cells sorted by distance from the start, up to the end's distance).
+	 */
+	public static AnimationExporter forAlgorithm(Grid grid, String algorithm) {
+		IntList visits = new IntList();
+		SearchResult result;
+		if (algorithm.equalsIgnoreCase("dfs")) {
+			result = new IterativeDfs(grid).dfs(grid.getStart(), grid.getTarget(), visits);
+		} else if (algorithm.equalsIgnoreCase("bfs")) {
+			int[] dist = grid.bfsDistances(grid.getStart());
+			int limit = dist[grid.getTarget()] < 0 ? Integer.MAX_VALUE : dist[grid.getTarget()];
+			IntList[] layers = new IntList[0];
+			for (int cell = 0; cell < dist.length; cell++) {
+				int d = dist[cell];
+				if (d < 0 || d > limit) continue;
+				if (d >= layers.length) {
+					layers = Arrays.copyOf(layers, Math.max(d + 1, layers.length * 2));
+				}
+				if (layers[d] == null) layers[d] = new IntList();
+				layers[d].add(cell);
+			}
+			for (IntList layer : layers) {
+				if (layer == null) continue;
+				for (int i = 0; i < layer.size(); i++) {
+					visits.add(layer.get(i));
+				}
+			}
+			result = WeightedSearch.search(grid, grid.getStart(), grid.getTarget(), Heuristic.none());
+		} else {
+			throw new IllegalArgumentException("Unknown algorithm for export: " + algorithm);
+		}
+		return new AnimationExporter(grid, visits, result);
+	}
+
+	/**
+	 * Usage: AnimationExporter <maze file | perfect:SIDE> <dfs | bfs> <out.gif | frame directory> [frames] [max size]
+	 */
+	public static void main(String[] args) throws IOException {
+		System.setProperty("java.awt.headless", "true");
+		if (args.length < 3) {
+			System.out.println("Usage: AnimationExporter <maze file | perfect:SIDE> <dfs | bfs> <out.gif | frame directory>"
+					+ " [frames] [max size]");
+			return;
+		}
+		Grid grid;
+		if (args[0].startsWith("perfect:")) {
+			int side = Integer.parseInt(args[0].substring("perfect:".length()));
+			grid = MazeGenerator.perfect(side, side, 1);
+		} else {
+			grid = Grid.load(new File(args[0]));
+		}
+
+		long startTime = System.currentTimeMillis();
+		AnimationExporter exporter = forAlgorithm(grid, args[1]);
+		if (args.length > 3) exporter.setFrameCount(Integer.parseInt(args[3]));
+		if (args.length > 4) exporter.setMaxSize(Integer.parseInt(args[4]));
+		long traceTime = System.currentTimeMillis();
+
+		File out = new File(args[2]);
+		if (out.getName().toLowerCase().endsWith(".gif")) {
+			exporter.writeGif(out);
+		} else {
+			exporter.writeFrames(out);
+		}
+		long endTime = System.currentTimeMillis();
+		System.out.println("Trace: " + exporter.visits.length + " cells in " + (traceTime - startTime) + " ms, export "
+				+ exporter.frameCount + " frames (" + exporter.imageWidth + "x" + exporter.imageHeight + ") in "
+				+ (endTime - traceTime) + " ms");
+	}
+}
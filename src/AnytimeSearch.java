@@ -0,0 +1,380 @@
+import java.util.Arrays;
+
+/**
+ * Budgeted anytime search (ARA*: anytime repairing A*).
+ * Runs weighted A* (f = g + w * h) with a decreasing weight, reusing the work of the previous pass, and
+ * stops when it runs out of time or expansions. Every finished pass improves the path and tightens
+ * the suboptimality bound (path cost <= bound * optimal cost); a pass with w = 1 ends with the optimal path.
+ *
+ * If the budget runs out before the target is reached, the result is the path to the closest cell
+ * reached so far (smallest heuristic distance to the target).
+ */
+public class AnytimeSearch {
+
+	private static final int SCALE = 10; // Weights are kept in tenths so keys stay integers
+
+	// Cell state flags, stored as a stamp: pass + flags (see ScratchArena.stamps)
+	private static final int CLOSED = 1;
+	private static final int INCONSISTENT = 2;	// Closed cell improved during the pass
+	private static final int STAMPS_PER_PASS = 4;
+
+	private final Grid grid;
+	private final Heuristic heuristic;
+	private int initialWeight = 30;	// 3.0
+	private int weightStep = 5;		// 0.5
+
+	// Working arrays, allocated by the first search and reused (never cleared) by later ones
+	private final ScratchArena arena = new ScratchArena();
+	private int[] state;	// g and back are valid where state >= first; the current pass's flags where state >= pass
+	private int first;		// First stamp of the current search
+	private int pass;		// First stamp of the current pass
+
+	/**
+	 * Outcome of a budgeted search.
+	 */
+	public static class Result {
+		private final SearchResult result;
+		private final boolean reachedTarget;
+		private final double bound;
+		private final int passes;
+
+		Result(SearchResult result, boolean reachedTarget, double bound, int passes) {
+			this.result = result;
+			this.reachedTarget = reachedTarget;
+			this.bound = bound;
+			this.passes = passes;
+		}
+
+		// Path to the target, or to the closest cell reached if the target was not reached
+		public SearchResult getResult() {
+			return result;
+		}
+
+		public boolean reachedTarget() {
+			return reachedTarget;
+		}
+
+		// Path cost is at most bound times the optimal cost (1 = optimal, infinite without a path)
+		public double getBound() {
+			return bound;
+		}
+
+		// Weighted A* passes completed
+		public int getPasses() {
+			return passes;
+		}
+
+		@Override
+		public String toString() {
+			if (!reachedTarget) {
+				return "target not reached, closest cell " + (result.isFound() ? result.getPath()[result.getPath().length - 1]
+						: -1) + ", " + result;
+			}
+			return String.format("%s, bound %.2f after %d pass%s", result, bound, passes, passes == 1 ? "" : "es");
+		}
+	}
+
+	public AnytimeSearch(Grid grid) {
+		this(grid, Heuristic.manhattan(grid));
+	}
+
+	// The heuristic must be admissible and consistent
+	public AnytimeSearch(Grid grid, Heuristic heuristic) {
+		this.grid = grid;
+		this.heuristic = heuristic;
+	}
+
+	// First pass weight (>= 1) and how much it drops per pass
+	public AnytimeSearch setWeights(double initial, double step) {
+		initialWeight = Math.max(SCALE, (int) Math.round(initial * SCALE));
+		weightStep = Math.max(1, (int) Math.round(step * SCALE));
+		return this;
+	}
+
+	public Grid getGrid() {
+		return grid;
+	}
+
+	// Start-end search within a time budget
+	public Result search(long budgetMillis) {
+		return search(grid.getStart(), grid.getTarget(), System.nanoTime() + budgetMillis * 1_000_000L, Long.MAX_VALUE);
+	}
+
+	/**
+	 * Search from source to goal that stops at the deadline (System.nanoTime() value) or after
+	 * maxExpansions, whichever comes first.
+	 */
+	public Result search(int source, int goal, long deadline, long maxExpansions) {
+		if (source < 0 || goal < 0 || grid.isWall(source) || grid.isWall(goal)) {
+			return new Result(SearchResult.notFound(0), false, Double.POSITIVE_INFINITY, 0);
+		}
+
+		int cells = grid.cells();
+		int maxPasses = (initialWeight - SCALE + weightStep - 1) / weightStep + 1;
+		int[] g = arena.ints(cells);
+		byte[] back = arena.bytes(cells);
+		state = arena.stamps(cells, maxPasses * STAMPS_PER_PASS);
+		first = arena.firstStamp();
+		pass = first;
+		IntList incons = new IntList();
+
+		// Stale entries (cell closed or improved since it was pushed) are skipped when they come up
+		OpenList open = new OpenList();
+		int weight = initialWeight;
+		g[source] = 0;
+		setFlags(source, 0);
+		push(open, source, goal, 0, weight);
+
+		int closest = source;
+		int closestH = heuristic.estimate(source, goal);
+		int[] bestPath = null;
+		long bestCost = Long.MAX_VALUE;
+		double bound = Double.POSITIVE_INFINITY;
+		int passes = 0;
+		long expansions = 0;
+		int[] around = new int[4];
+
+		while (true) {
+			// One weighted A* pass: expand until nothing in open can beat the goal's key
+			boolean outOfBudget = false;
+			while (true) {
+				while (!open.isEmpty() && isStale(open, g, goal, weight)) {
+					open.pop();
+				}
+				if (open.isEmpty() || (state[goal] >= first && key(goal, goal, g[goal], weight) <= open.topKey())) {
+					break;
+				}
+				if (expansions >= maxExpansions || ((expansions & 255) == 0 && System.nanoTime() > deadline)) {
+					outOfBudget = true;
+					break;
+				}
+				int cell = open.pop();
+				setFlags(cell, flags(cell) | CLOSED);
+				expansions++;
+				int h = heuristic.estimate(cell, goal);
+				if (h < closestH) {
+					closest = cell;
+					closestH = h;
+				}
+
+				int count = grid.neighbours(cell, around);
+				for (int n = 0; n < count; n++) {
+					int next = around[n];
+					int candidate = g[cell] + grid.cost(next);
+					if (state[next] < first || candidate < g[next]) {
+						g[next] = candidate;
+						back[next] = (byte) grid.direction(next, cell);
+						int flags = flags(next);
+						if ((flags & CLOSED) == 0) {
+							setFlags(next, flags);
+							push(open, next, goal, candidate, weight);
+						} else if ((flags & INCONSISTENT) == 0) {
+							setFlags(next, flags | INCONSISTENT);
+							incons.add(next);
+						}
+					}
+				}
+			}
+
+			boolean goalReached = state[goal] >= first;
+			if (goalReached && g[goal] < bestCost) {
+				bestPath = WeightedSearch.path(grid, back, source, goal);
+				bestCost = pathCost(bestPath); // Can be below g[goal] when cells on the way improved later
+			}
+			if (bestPath != null) {
+				bound = Math.min(outOfBudget ? bound : weight / (double) SCALE,
+						bestCost / (double) Math.max(1, lowerBound(open, incons, g, goal, bestCost)));
+				bound = Math.max(1, bound);
+			}
+			if (outOfBudget) {
+				break;
+			}
+			passes++;
+			if (weight == SCALE || !goalReached) {
+				// Optimal (w = 1) or the goal is unreachable: nothing left to improve
+				if (bestPath != null) bound = 1;
+				break;
+			}
+
+			// Next pass: lower the weight, move the inconsistent cells back into open and re-key it
+			weight = Math.max(SCALE, weight - weightStep);
+			IntList pending = incons;
+			for (int i = 0; i < open.size(); i++) {
+				int cell = open.cell(i);
+				if (flags(cell) == 0) {
+					setFlags(cell, INCONSISTENT); // Marks the cell as pending, drops duplicates
+					pending.add(cell);
+				}
+			}
+			open.clear();
+			pass += STAMPS_PER_PASS; // Clears every closed and inconsistent flag
+			for (int i = 0; i < pending.size(); i++) {
+				int cell = pending.get(i);
+				setFlags(cell, 0);
+				push(open, cell, goal, g[cell], weight);
+			}
+			incons = new IntList();
+		}
+
+		if (bestPath != null) {
+			return new Result(new SearchResult(bestPath, bestCost, expansions), true, bound, passes);
+		}
+		int[] partialPath = WeightedSearch.path(grid, back, source, closest);
+		SearchResult partial = new SearchResult(partialPath, pathCost(partialPath), expansions);
+		return new Result(partial, false, Double.POSITIVE_INFINITY, passes);
+	}
+
+	private long pathCost(int[] path) {
+		long cost = 0;
+		for (int i = 1; i < path.length; i++) {
+			cost += grid.cost(path[i]);
+		}
+		return cost;
+	}
+
+	// CLOSED / INCONSISTENT flags of a cell in the current pass
+	private int flags(int cell) {
+		return Math.max(0, state[cell] - pass);
+	}
+
+	// Marks the cell as reached in this search, with the given flags for this pass
+	private void setFlags(int cell, int flags) {
+		state[cell] = pass + flags;
+	}
+
+	// Unweighted f of every cell still waiting (open and inconsistent): no path can cost less
+	private long lowerBound(OpenList open, IntList incons, int[] g, int goal, long bestCost) {
+		long min = bestCost;
+		for (int i = 0; i < open.size(); i++) {
+			int cell = open.cell(i);
+			if ((flags(cell) & CLOSED) == 0) {
+				min = Math.min(min, (long) g[cell] + heuristic.estimate(cell, goal));
+			}
+		}
+		for (int i = 0; i < incons.size(); i++) {
+			int cell = incons.get(i);
+			min = Math.min(min, (long) g[cell] + heuristic.estimate(cell, goal));
+		}
+		return min;
+	}
+
+	// True if the top entry's cell is already closed or its key no longer matches the cell's g
+	private boolean isStale(OpenList open, int[] g, int goal, int weight) {
+		int cell = open.topCell();
+		return (flags(cell) & CLOSED) != 0 || key(cell, goal, g[cell], weight) != open.topKey();
+	}
+
+	private void push(OpenList open, int cell, int goal, int g, int weight) {
+		int h = heuristic.estimate(cell, goal);
+		open.push((long) SCALE * g + (long) weight * h, h, cell);
+	}
+
+	// SCALE * g + weight * h
+	private long key(int cell, int goal, int g, int weight) {
+		return (long) SCALE * g + (long) weight * heuristic.estimate(cell, goal);
+	}
+
+	/**
+	 * Binary min-heap of (key, h, cell) in parallel primitive arrays.
+	 * Equal keys pop the entry with the smaller h first, i.e. the one closer to the goal,
+	 * which keeps A* from spreading over plateaus of equal f.
+	 */
+	private static class OpenList {
+		private long[] keys = new long[64];
+		private int[] hs = new int[64];
+		private int[] cells = new int[64];
+		private int size;
+
+		void push(long key, int h, int cell) {
+			if (size == keys.length) {
+				keys = Arrays.copyOf(keys, size * 2);
+				hs = Arrays.copyOf(hs, size * 2);
+				cells = Arrays.copyOf(cells, size * 2);
+			}
+			int i = size++;
+			while (i > 0) {
+				int parent = (i - 1) >>> 1;
+				if (!less(key, h, keys[parent], hs[parent])) break;
+				set(i, keys[parent], hs[parent], cells[parent]);
+				i = parent;
+			}
+			set(i, key, h, cell);
+		}
+
+		int pop() {
+			int top = cells[0];
+			size--;
+			long key = keys[size];
+			int h = hs[size];
+			int cell = cells[size];
+			int i = 0;
+			while (true) {
+				int child = 2 * i + 1;
+				if (child >= size) break;
+				if (child + 1 < size && less(keys[child + 1], hs[child + 1], keys[child], hs[child])) child++;
+				if (!less(keys[child], hs[child], key, h)) break;
+				set(i, keys[child], hs[child], cells[child]);
+				i = child;
+			}
+			set(i, key, h, cell);
+			return top;
+		}
+
+		private static boolean less(long key, int h, long otherKey, int otherH) {
+			return key < otherKey || (key == otherKey && h < otherH);
+		}
+
+		private void set(int i, long key, int h, int cell) {
+			keys[i] = key;
+			hs[i] = h;
+			cells[i] = cell;
+		}
+
+		long topKey() {
+			return keys[0];
+		}
+
+		int topCell() {
+			return cells[0];
+		}
+
+		// Cell of the i-th entry in heap order (for scans over every entry)
+		int cell(int i) {
+			return cells[i];
+		}
+
+		int size() {
+			return size;
+		}
+
+		boolean isEmpty() {
+			return size == 0;
+		}
+
+		void clear() {
+			size = 0;
+		}
+	}
+
+	/**
+	 * Runs budgeted searches with growing budgets on a generated maze and compares them with plain A*.
+	 * Usage: AnytimeSearch [side] [density]
+	 */
+	public static void main(String[] args) {
+		int side = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+		double density = args.length > 1 ? Double.parseDouble(args[1]) : 0.25;
+		Grid grid = MazeGenerator.random(side, side, density, 5);
+		long t0 = System.nanoTime();
+		SearchResult optimal = WeightedSearch.astar(grid);
+		long t1 = System.nanoTime();
+		System.out.printf("%dx%d density %.2f, A*: %s in %.1f ms%n", side, side, density, optimal, (t1 - t0) / 1e6);
+		AnytimeSearch search = new AnytimeSearch(grid);
+		search.search(1); // Allocates the working arrays
+		for (long budget : new long[] { 1, 5, 20, 100, 1000 }) {
+			long start = System.nanoTime();
+			Result result = search.search(budget);
+			long end = System.nanoTime();
+			System.out.printf("budget %4d ms: %s (took %.1f ms)%n", budget, result, (end - start) / 1e6);
+		}
+	}
+}
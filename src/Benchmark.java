@@ -0,0 +1,420 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Reproducible benchmark corpus and performance regression gate.
+ *
+ * The corpus is a fixed, versioned list of seeded mazes: every generator style (perfect, braided,
+ * random walls at 10% and 30%, 20% random walls on weighted terrain) at sizes from about 10^3 to 10^8 cells.
+ * The same corpus version always yields the same mazes (each case's content hash is stored with its
+ * results, so baselines from a different corpus are never compared).
+ *
+ * Every solver runs on every case (the "offheap" solver only on cases above Grid.LARGE_MAZE_CELLS, the mazes
+ * Grid.load keeps off the heap); the fastest time, the expansions and the bytes the solving thread
+ * allocated are compared with a baseline file, and the run exits with status 1 when any of them got worse
+ * by more than the threshold (or a path cost changed).
+ *
+ * Expansions, allocation and path costs are deterministic and are checked case by case. Times are not
+ * (JIT decisions and other load move single cases by 20-50%), so a solver fails on time when its geometric
+ * mean slowdown over all cases passes the threshold, or when one case is slower by five times the threshold
+ * (twice as slow at the default 20%).
+ * A case that looks slower is measured again, three times as long, before it counts.
+ *
+ * Usage: Benchmark [options]
+ *   --max-cells N     largest cases to run (default 10^6; 10^8 needs about 8 GB of heap)
+ *   --runs N          timed runs per solver and case, after a warm-up (default 5)
+ *   --threshold F     allowed slowdown / growth, 0.2 = 20% (default 0.2)
+ *   --baseline FILE   baseline to compare with or save to (default benchmark.baseline)
+ *   --save            record this run as the new baseline instead of comparing
+ *   --corpus DIR      only write the corpus as '.maze' files (plus corpus.txt) to DIR
+ */
+public class Benchmark {
+
+	public static final int CORPUS_VERSION = 1;
+
+	// Approximate cell counts 10^3 .. 10^8 (odd sides, as the perfect maze generator needs)
+	private static final int[] SIDES = { 31, 101, 317, 1001, 3163, 10001 };
+	private static final String[] STYLES = { "perfect", "braid", "random10", "random30", "terrain" };
+	private static final String[] SOLVERS = { "bfs", "dfs", "astar", "dijkstra", "junction", "flow", "wavefront",
+			"offheap" };
+
+	private static final double NOISE_MILLIS = 0.5;		// Time differences below this are never regressions
+	private static final long NOISE_BYTES = 64 * 1024;	// Same for allocation (TLAB refills, lazy class init)
+	private static final long WARM_UP_MILLIS = 200;		// Warm-up per solver and case (at most 20 runs)
+	private static final int CASE_FACTOR = 5;			// Single case time threshold, in multiples of the threshold
+
+	private static final ScratchArena ARENA = new ScratchArena();	// Working arrays of the "offheap" solver
+
+	/**
+	 * One corpus entry: a generator style, a size and the seed derived from both.
+	 */
+	public static class Case {
+		private final String style;
+		private final int side;
+
+		Case(String style, int side) {
+			this.style = style;
+			this.side = side;
+		}
+
+		public String getName() {
+			return style + "-" + side;
+		}
+
+		public long getCells() {
+			return (long) side * side;
+		}
+
+		// Seed of the case in this corpus version
+		long seed() {
+			return CORPUS_VERSION * 1_000_003L + Arrays.asList(STYLES).indexOf(style) * 100_003L + side;
+		}
+
+		/**
+		 * Builds the maze. Random styles retry with the next seed until start and end are connected
+		 * (deterministically, so the corpus stays the same), since unsolvable cases measure little.
+		 */
+		public Grid generate() {
+			long seed = seed();
+			switch (style) {
+			case "perfect":
+				return MazeGenerator.perfect(side, side, seed);
+			case "braid":
+				return MazeGenerator.braid(side, side, 0.1, seed);
+			default:
+				double density = style.equals("random10") ? 0.1 : style.equals("random30") ? 0.3 : 0.2;
+				for (int attempt = 0;; attempt++) {
+					Grid grid = MazeGenerator.random(side, side, density, seed + attempt);
+					if (style.equals("terrain")) {
+						addTerrain(grid, seed + attempt);
+					}
+					if (attempt == 20 || new BitWavefront(grid).connected(grid.getStart(), grid.getTarget())) {
+						return grid;
+					}
+				}
+			}
+		}
+
+		// A quarter of the open cells get a random cost of 4-9
+		private static void addTerrain(Grid grid, long seed) {
+			Random random = new Random(seed);
+			for (int cell = 0; cell < grid.cells(); cell++) {
+				if (grid.isOpen(cell) && cell != grid.getStart() && cell != grid.getTarget() && random.nextInt(4) == 0) {
+					grid.setCost(cell, 4 + random.nextInt(6));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Measurements of one solver on one case.
+	 */
+	static class Measurement {
+		final long hash;			// Grid.contentHash of the case
+		final double millis;		// Fastest run (interruptions only ever add time, so this is the stable statistic)
+		final long expansions;
+		final long bytes;			// Least bytes allocated by the solving thread in one run (-1 = not measured)
+		final long cost;			// Path cost (-1 = no path)
+
+		Measurement(long hash, double millis, long expansions, long bytes, long cost) {
+			this.hash = hash;
+			this.millis = millis;
+			this.expansions = expansions;
+			this.bytes = bytes;
+			this.cost = cost;
+		}
+	}
+
+	// Every corpus case up to maxCells cells, smallest first
+	public static List<Case> corpus(long maxCells) {
+		List<Case> cases = new ArrayList<>();
+		for (int side : SIDES) {
+			for (String style : STYLES) {
+				Case c = new Case(style, side);
+				if (c.getCells() <= maxCells) {
+					cases.add(c);
+				}
+			}
+		}
+		return cases;
+	}
+
+	// Writes the corpus mazes and a manifest (name, seed, size, content hash) to directory
+	public static void writeCorpus(File directory, long maxCells) throws IOException {
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new IOException("Can't create " + directory);
+		}
+		try (BufferedWriter manifest = new BufferedWriter(new FileWriter(new File(directory, "corpus.txt")))) {
+			manifest.write("# Benchmark corpus version " + CORPUS_VERSION);
+			manifest.newLine();
+			for (Case c : corpus(maxCells)) {
+				Grid grid = c.generate();
+				grid.save(new File(directory, c.getName() + ".maze"));
+				manifest.write(String.format("%s\t%d\t%dx%d\t%016x", c.getName(), c.seed(), c.side, c.side,
+						grid.contentHash()));
+				manifest.newLine();
+				System.out.println("Wrote " + c.getName() + ".maze");
+			}
+		}
+	}
+
+	/**
+	 * Runs one solver on the grid's start and end. Returns null if the solver doesn't apply
+	 * (the unweighted solvers on weighted terrain, "offheap" on anything but an OffHeapGrid).
+	 */
+	static SearchResult solve(Grid grid, String solver) {
+		switch (solver) {
+		case "bfs":
+			return grid.isWeighted() ? null : ParallelBfs.solve(grid);
+		case "dfs":
+			return grid.isWeighted() ? null : new IterativeDfs(grid).dfs();
+		case "astar":
+			return WeightedSearch.astar(grid);
+		case "dijkstra":
+			return WeightedSearch.dijkstra(grid);
+		case "junction":
+			return JunctionGraph.build(grid, true).solve(true);
+		case "flow":
+			FlowField.clearCache(); // Time the field, not the cache
+			return FlowField.forTarget(grid, grid.getTarget()).path(grid.getStart());
+		case "wavefront":
+			return grid.isWeighted() ? null : new BitWavefront(grid).search();
+		case "offheap":
+			// A* as on a large loaded maze: off-heap cells and a reused arena
+			return grid instanceof OffHeapGrid ? WeightedSearch.search(grid, grid.getStart(), grid.getTarget(),
+					Heuristic.manhattan(grid), ARENA) : null;
+		default:
+			throw new IllegalArgumentException("Unknown solver: " + solver);
+		}
+	}
+
+	// Fastest time, expansions, least allocation over runs (after warming up)
+	static Measurement measure(Grid grid, long hash, String solver, int runs) {
+		com.sun.management.ThreadMXBean threads = allocationBean();
+		long thread = Thread.currentThread().getId();
+		SearchResult result = solve(grid, solver);
+		if (result == null) {
+			return null;
+		}
+		long warmUpEnd = System.nanoTime() + WARM_UP_MILLIS * 1_000_000;
+		for (int i = 1; i < 20 && System.nanoTime() < warmUpEnd; i++) {
+			solve(grid, solver);
+		}
+		double millis = Double.MAX_VALUE;
+		long bytes = Long.MAX_VALUE;
+		for (int run = 0; run < runs; run++) {
+			long allocated = threads != null ? threads.getThreadAllocatedBytes(thread) : 0;
+			long start = System.nanoTime();
+			result = solve(grid, solver);
+			millis = Math.min(millis, (System.nanoTime() - start) / 1e6);
+			if (threads != null) {
+				bytes = Math.min(bytes, threads.getThreadAllocatedBytes(thread) - allocated);
+			}
+		}
+		return new Measurement(hash, millis, result.getExpansions(), threads != null ? bytes : -1,
+				result.getCost());
+	}
+
+	// HotSpot's per-thread allocation counter, or null on JVMs without it
+	private static com.sun.management.ThreadMXBean allocationBean() {
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean) {
+			com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+			if (threads.isThreadAllocatedMemorySupported()) {
+				threads.setThreadAllocatedMemoryEnabled(true);
+				return threads;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Baseline file: a version line, then one tab separated line per solver and case:
+	 * case, solver, content hash, fastest ms, expansions, allocated bytes, path cost.
+	 */
+	static Map<String, Measurement> readBaseline(File file) throws IOException {
+		Map<String, Measurement> baseline = new LinkedHashMap<>();
+		try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (line.isEmpty() || line.startsWith("#")) continue;
+				String[] f = line.split("\t");
+				if (f.length != 7) {
+					throw new IOException("Bad baseline line: " + line);
+				}
+				baseline.put(f[0] + " " + f[1], new Measurement(Long.parseUnsignedLong(f[2], 16),
+						Double.parseDouble(f[3]), Long.parseLong(f[4]), Long.parseLong(f[5]), Long.parseLong(f[6])));
+			}
+		}
+		return baseline;
+	}
+
+	static void writeBaseline(File file, Map<String, Measurement> results) throws IOException {
+		try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
+			writer.write("# Benchmark baseline, corpus version " + CORPUS_VERSION + ", " + System.getProperty("java.vm.name")
+					+ " " + System.getProperty("java.version") + ", " + Runtime.getRuntime().availableProcessors()
+					+ " cores");
+			writer.newLine();
+			for (Map.Entry<String, Measurement> entry : results.entrySet()) {
+				Measurement m = entry.getValue();
+				writer.write(entry.getKey().replace(' ', '\t') + String.format("\t%016x\t%.3f\t%d\t%d\t%d", m.hash,
+						m.millis, m.expansions, m.bytes, m.cost));
+				writer.newLine();
+			}
+		}
+	}
+
+	// The faster of two measurements of the same solver and case
+	private static Measurement better(Measurement a, Measurement b) {
+		return new Measurement(a.hash, Math.min(a.millis, b.millis), Math.min(a.expansions, b.expansions),
+				Math.min(a.bytes, b.bytes), a.cost);
+	}
+
+	/**
+	 * Why the measurement is a regression against the baseline one, or null if it isn't.
+	 */
+	static String regression(Measurement now, Measurement base, double threshold) {
+		if (now.cost != base.cost) {
+			return "path cost " + base.cost + " -> " + now.cost;
+		}
+		if (now.millis > base.millis * (1 + CASE_FACTOR * threshold) && now.millis - base.millis > NOISE_MILLIS) {
+			return String.format("time %.2f -> %.2f ms (%+.0f%%)", base.millis, now.millis,
+					(now.millis / base.millis - 1) * 100);
+		}
+		if (now.expansions > base.expansions * (1 + threshold)) {
+			return "expansions " + base.expansions + " -> " + now.expansions;
+		}
+		if (now.bytes >= 0 && base.bytes >= 0 && now.bytes > base.bytes * (1 + threshold)
+				&& now.bytes - base.bytes > NOISE_BYTES) {
+			return "allocated " + base.bytes + " -> " + now.bytes + " bytes";
+		}
+		return null;
+	}
+
+	public static void main(String[] args) throws IOException {
+		long maxCells = 1_000_000;
+		int runs = 5;
+		double threshold = 0.2;
+		File baselineFile = new File("benchmark.baseline");
+		boolean save = false;
+		for (int i = 0; i < args.length; i++) {
+			switch (args[i]) {
+			case "--max-cells":
+				maxCells = (long) Double.parseDouble(args[++i]);
+				break;
+			case "--runs":
+				runs = Math.max(1, Integer.parseInt(args[++i]));
+				break;
+			case "--threshold":
+				threshold = Double.parseDouble(args[++i]);
+				break;
+			case "--baseline":
+				baselineFile = new File(args[++i]);
+				break;
+			case "--save":
+				save = true;
+				break;
+			case "--corpus":
+				writeCorpus(new File(args[++i]), maxCells);
+				return;
+			default:
+				System.out.println("Unknown option " + args[i] + " (see the Benchmark class comment for usage)");
+				System.exit(2);
+			}
+		}
+
+		Map<String, Measurement> baseline = null;
+		if (!save) {
+			if (!baselineFile.exists()) {
+				System.out.println("No baseline " + baselineFile + ": run with --save first");
+				System.exit(2);
+			}
+			baseline = readBaseline(baselineFile);
+		}
+
+		Map<String, Measurement> results = new LinkedHashMap<>();
+		List<String> regressions = new ArrayList<>();
+		Map<String, double[]> slowdowns = new LinkedHashMap<>(); // Per solver: sum of log(time / baseline), cases
+		System.out.printf("%-15s %-10s %10s %12s %12s %14s  %s%n", "case", "solver", "ms", "solves/s", "expansions",
+				"allocated", save ? "" : "vs baseline");
+		for (Case c : corpus(maxCells)) {
+			Grid grid = c.generate();
+			long hash = grid.contentHash();
+			Grid offHeap = c.getCells() > Grid.LARGE_MAZE_CELLS ? OffHeapGrid.copyOf(grid) : null;
+			for (String solver : SOLVERS) {
+				Grid solved = solver.equals("offheap") ? offHeap : grid;
+				if (solved == null) continue;
+				Measurement now = measure(solved, hash, solver, runs);
+				if (now == null) continue;
+				String key = c.getName() + " " + solver;
+				results.put(key, now);
+
+				String verdict = "";
+				if (baseline != null) {
+					Measurement base = baseline.get(key);
+					if (base == null) {
+						verdict = "new";
+					} else if (base.hash != hash) {
+						verdict = "maze differs from the baseline's, not compared";
+					} else {
+						String why = regression(now, base, threshold);
+						boolean slower = now.millis > base.millis * (1 + threshold);
+						if ((why != null || slower) && now.cost == base.cost) {
+							// Confirm with a longer second measurement before failing, timing is noisy
+							now = better(now, measure(solved, hash, solver, runs * 3));
+							results.put(key, now);
+							why = regression(now, base, threshold);
+						}
+						verdict = why == null ? String.format("ok (%+.0f%% time)", (now.millis / base.millis - 1) * 100)
+								: "REGRESSION: " + why;
+						if (why != null) {
+							regressions.add(key + ": " + why);
+						}
+						if (base.millis >= NOISE_MILLIS) {
+							double[] sum = slowdowns.computeIfAbsent(solver, k -> new double[2]);
+							sum[0] += Math.log(now.millis / base.millis);
+							sum[1]++;
+						}
+					}
+				}
+				System.out.printf("%-15s %-10s %10.2f %12.1f %12d %14d  %s%n", c.getName(), solver, now.millis,
+						1000 / Math.max(now.millis, 1e-3), now.expansions, now.bytes, verdict);
+			}
+		}
+
+		if (save) {
+			writeBaseline(baselineFile, results);
+			System.out.println("Saved " + results.size() + " measurements to " + baselineFile);
+			return;
+		}
+		for (Map.Entry<String, double[]> entry : slowdowns.entrySet()) {
+			double mean = Math.exp(entry.getValue()[0] / entry.getValue()[1]);
+			String summary = String.format("%s: geometric mean time %+.1f%% over %d cases", entry.getKey(),
+					(mean - 1) * 100, (int) entry.getValue()[1]);
+			System.out.println(summary);
+			if (mean > 1 + threshold) {
+				regressions.add(summary);
+			}
+		}
+		if (!regressions.isEmpty()) {
+			System.out.println(regressions.size() + " regression(s) beyond " + Math.round(threshold * 100) + "%:");
+			for (String regression : regressions) {
+				System.out.println("  " + regression);
+			}
+			System.exit(1);
+		}
+		System.out.println("No regressions beyond " + Math.round(threshold * 100) + "% in " + results.size()
+				+ " measurements");
+	}
+}
@@ -0,0 +1,322 @@
+import java.util.Arrays;
+
+/**
+ * Bit-parallel wavefront (flood fill) engine.
+ * The maze is stored as one bitmap row per y, padded to whole 64-bit words, so one BFS level is a few
+ * shifts, ORs and masks per word: 64 cells are advanced at once instead of visiting them one by one.
+ *
+ * - search(): level by level wavefront from the start, stops at the level that reaches the target.
+ *   Every reached cell keeps its distance modulo 3 in two bit planes; since neighbouring cells differ by
+ *   at most one level, that is enough to walk back from the target along decreasing distances.
+ * - reachable(): reachability oracle. Sweeps rows top-down and bottom-up, filling whole horizontal runs
+ *   with a carry-propagating addition, until nothing changes. No distances, but very few passes on open mazes.
+ */
+public class BitWavefront {
+
+	private final Grid grid;
+	private final int width;
+	private final int height;
+	private final int stride;		// Words per row
+	private final long[] open;		// Open cells, padding bits past the row end are always 0
+
+	public BitWavefront(Grid grid) {
+		this.grid = grid;
+		this.width = grid.getWidth();
+		this.height = grid.getHeight();
+		this.stride = (width + 63) >>> 6;
+		this.open = new long[stride * height];
+
+		// Copy the linear wall bitset into padded rows, 64 bits at a time
+		for (int y = 0; y < height; y++) {
+			long offset = (long) y * width;
+			for (int i = 0; i < stride; i++) {
+				int bits = Math.min(64, width - (i << 6));
+				long word = ~extract(grid, offset + (i << 6));
+				open[y * stride + i] = bits == 64 ? word : word & ((1L << bits) - 1);
+			}
+		}
+	}
+
+	// 64 bits of the grid's linear wall bitset starting at an arbitrary bit position
+	private static long extract(Grid grid, long position) {
+		int words = grid.wallWords();
+		int w = (int) (position >>> 6);
+		int shift = (int) (position & 63);
+		long low = w < words ? grid.wallWord(w) >>> shift : 0;
+		if (shift == 0 || w + 1 >= words) {
+			return low;
+		}
+		return low | (grid.wallWord(w + 1) << (64 - shift));
+	}
+
+	/**
+	 * Shortest start-end path via the bit-parallel wavefront.
+	 * Expansions are the number of cells reached.
+	 */
+	public SearchResult search() {
+		int source = grid.getStart();
+		int goal = grid.getTarget();
+		if (source < 0 || goal < 0 || grid.isWall(source) || grid.isWall(goal)) {
+			return SearchResult.notFound(0);
+		}
+
+		long[] reached = new long[open.length];
+		long[] frontier = new long[open.length];
+		long[] next = new long[open.length];
+		long[] plane0 = new long[open.length];	// Bit 0 of (distance mod 3)
+		long[] plane1 = new long[open.length];	// Bit 1 of (distance mod 3)
+
+		setBit(reached, source);
+		setBit(frontier, source);
+		// Per row, the word range holding frontier bits (lo > hi means the row is empty), so a thin
+		// frontier only costs the few words it touches in each row
+		int[] frontierLo = new int[height];
+		int[] frontierHi = new int[height];
+		int[] nextLo = new int[height];
+		int[] nextHi = new int[height];
+		Arrays.fill(frontierLo, Integer.MAX_VALUE);
+		Arrays.fill(frontierHi, -1);
+		Arrays.fill(nextLo, Integer.MAX_VALUE);
+		Arrays.fill(nextHi, -1);
+		int top = grid.y(source);		// Rows holding frontier bits
+		int bottom = top;
+		frontierLo[top] = frontierHi[top] = grid.x(source) >>> 6;
+		long count = 1;
+		int level = 0;
+
+		while (!testBit(reached, goal)) {
+			level++;
+			int mod = level % 3;
+			int from = Math.max(0, top - 1);
+			int to = Math.min(height - 1, bottom + 1);
+			int newTop = Integer.MAX_VALUE;
+			int newBottom = -1;
+			for (int y = from; y <= to; y++) {
+				// Words that can receive bits: frontier words of this row and the rows around it, plus one each side
+				int lo = frontierLo[y];
+				int hi = frontierHi[y];
+				if (y > 0) {
+					lo = Math.min(lo, frontierLo[y - 1]);
+					hi = Math.max(hi, frontierHi[y - 1]);
+				}
+				if (y < height - 1) {
+					lo = Math.min(lo, frontierLo[y + 1]);
+					hi = Math.max(hi, frontierHi[y + 1]);
+				}
+				if (hi < 0) continue;
+				lo = Math.max(0, lo - 1);
+				hi = Math.min(stride - 1, hi + 1);
+
+				int row = y * stride;
+				for (int i = lo; i <= hi; i++) {
+					int w = row + i;
+					long f = frontier[w];
+					long grow = f | (f << 1) | (f >>> 1);
+					if (i > 0) grow |= frontier[w - 1] >>> 63;				// Carry from the word to the left
+					if (i < stride - 1) grow |= frontier[w + 1] << 63;		// Carry from the word to the right
+					if (y > 0) grow |= frontier[w - stride];
+					if (y < height - 1) grow |= frontier[w + stride];
+					long fresh = grow & open[w] & ~reached[w];
+					if (fresh != 0) {
+						next[w] = fresh;
+						reached[w] |= fresh;
+						if ((mod & 1) != 0) plane0[w] |= fresh;
+						if ((mod & 2) != 0) plane1[w] |= fresh;
+						count += Long.bitCount(fresh);
+						if (i < nextLo[y]) nextLo[y] = i;
+						nextHi[y] = i;
+					}
+				}
+				if (nextHi[y] >= 0) {
+					newTop = Math.min(newTop, y);
+					newBottom = y;
+				}
+			}
+			if (newBottom < 0) {
+				return SearchResult.notFound(count); // Wavefront died out
+			}
+
+			// Clear the old frontier and swap
+			for (int y = top; y <= bottom; y++) {
+				for (int i = frontierLo[y]; i <= frontierHi[y]; i++) {
+					frontier[y * stride + i] = 0;
+				}
+				frontierLo[y] = Integer.MAX_VALUE;
+				frontierHi[y] = -1;
+			}
+			long[] swap = frontier;
+			frontier = next;
+			next = swap;
+			int[] swapRange = frontierLo;
+			frontierLo = nextLo;
+			nextLo = swapRange;
+			swapRange = frontierHi;
+			frontierHi = nextHi;
+			nextHi = swapRange;
+			top = newTop;
+			bottom = newBottom;
+		}
+
+		return new SearchResult(backtrack(reached, plane0, plane1, source, goal, level), level, count);
+	}
+
+	// Walks from goal to source, always stepping to a reached neighbour one level closer
+	private int[] backtrack(long[] reached, long[] plane0, long[] plane1, int source, int goal, int level) {
+		int[] path = new int[level + 1];
+		int x = grid.x(goal);
+		int y = grid.y(goal);
+		path[level] = goal;
+		for (int d = level - 1; d >= 0; d--) {
+			int want = d % 3;
+			if (x > 0 && isLevel(reached, plane0, plane1, x - 1, y, want)) {
+				x--;
+			} else if (y < height - 1 && isLevel(reached, plane0, plane1, x, y + 1, want)) {
+				y++;
+			} else if (x < width - 1 && isLevel(reached, plane0, plane1, x + 1, y, want)) {
+				x++;
+			} else {
+				y--;
+			}
+			path[d] = grid.index(x, y);
+		}
+		return path;
+	}
+
+	private boolean isLevel(long[] reached, long[] plane0, long[] plane1, int x, int y, int mod) {
+		int w = y * stride + (x >>> 6);
+		long mask = 1L << x;
+		if ((reached[w] & mask) == 0) return false;
+		int value = ((plane0[w] & mask) != 0 ? 1 : 0) | ((plane1[w] & mask) != 0 ? 2 : 0);
+		return value == mod;
+	}
+
+	/**
+	 * Reachability oracle: every open cell connected to source, as a linear (y * width + x) bitset
+	 * in the same layout as the grid's walls.
+	 */
+	public long[] reachable(int source) {
+		long[] linear = new long[(grid.cells() + 63) >>> 6];
+		if (source < 0 || grid.isWall(source)) {
+			return linear;
+		}
+		long[] reached = new long[open.length];
+		setBit(reached, source);
+		fillRow(reached, grid.y(source));
+
+		boolean changed = true;
+		while (changed) {
+			changed = false;
+			for (int y = 1; y < height; y++) {
+				changed |= spread(reached, y - 1, y);
+			}
+			for (int y = height - 2; y >= 0; y--) {
+				changed |= spread(reached, y + 1, y);
+			}
+		}
+
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				if ((reached[y * stride + (x >>> 6)] & (1L << x)) != 0) {
+					int cell = grid.index(x, y);
+					linear[cell >>> 6] |= 1L << cell;
+				}
+			}
+		}
+		return linear;
+	}
+
+	// True if a and b are in the same open component
+	public boolean connected(int a, int b) {
+		long[] reach = reachable(a);
+		return b >= 0 && (reach[b >>> 6] & (1L << b)) != 0;
+	}
+
+	// Pushes reached cells vertically from row 'from' into row 'to' and fills the runs they land in
+	private boolean spread(long[] reached, int from, int to) {
+		int src = from * stride;
+		int dst = to * stride;
+		boolean grew = false;
+		for (int i = 0; i < stride; i++) {
+			long fresh = reached[src + i] & open[dst + i] & ~reached[dst + i];
+			if (fresh != 0) {
+				reached[dst + i] |= fresh;
+				grew = true;
+			}
+		}
+		if (grew) {
+			fillRow(reached, to);
+		}
+		return grew;
+	}
+
+	/**
+	 * Fills every horizontal run of open cells in row y that holds a reached cell.
+	 * Adding the seeds to the open mask carries through each run; the bits that flipped are the run.
+	 * Done once towards higher x and once (on bit-reversed words) towards lower x.
+	 */
+	private void fillRow(long[] reached, int y) {
+		int row = y * stride;
+		long carry = 0;
+		for (int i = 0; i < stride; i++) {
+			long o = open[row + i];
+			long s = reached[row + i] & o;
+			long sum = o + s;
+			long carryOut = Long.compareUnsigned(sum, o) < 0 ? 1 : 0;
+			long total = sum + carry;
+			if (carry != 0 && total == 0) carryOut = 1;
+			reached[row + i] = s | ((total ^ o) & o);
+			carry = carryOut;
+		}
+		carry = 0;
+		for (int i = stride - 1; i >= 0; i--) {
+			long o = Long.reverse(open[row + i]);
+			long s = Long.reverse(reached[row + i]) & o;
+			long sum = o + s;
+			long carryOut = Long.compareUnsigned(sum, o) < 0 ? 1 : 0;
+			long total = sum + carry;
+			if (carry != 0 && total == 0) carryOut = 1;
+			reached[row + i] = Long.reverse(s | ((total ^ o) & o));
+			carry = carryOut;
+		}
+	}
+
+	private void setBit(long[] rows, int cell) {
+		int x = grid.x(cell);
+		rows[grid.y(cell) * stride + (x >>> 6)] |= 1L << x;
+	}
+
+	private boolean testBit(long[] rows, int cell) {
+		int x = grid.x(cell);
+		return (rows[grid.y(cell) * stride + (x >>> 6)] & (1L << x)) != 0;
+	}
+
+	/**
+	 * Benchmark against the scalar BFS (Grid.bfsDistances) on sparse and dense random mazes.
+	 * The first round only warms up the JIT.
+	 * Usage: BitWavefront [side]
+	 */
+	public static void main(String[] args) {
+		int side = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+		double[] densities = { 0.1, 0.25, 0.4, 0.1, 0.25, 0.4 };
+		for (int round = 0; round < densities.length; round++) {
+			double density = densities[round];
+			Grid grid = MazeGenerator.random(side, side, density, 7);
+
+			long t0 = System.nanoTime();
+			int expected = grid.bfsDistances(grid.getStart())[grid.getTarget()];
+			long t1 = System.nanoTime();
+			BitWavefront wavefront = new BitWavefront(grid);
+			long t2 = System.nanoTime();
+			SearchResult result = wavefront.search();
+			long t3 = System.nanoTime();
+			boolean connected = wavefront.connected(grid.getStart(), grid.getTarget());
+			long t4 = System.nanoTime();
+
+			if (round < densities.length / 2) continue; // Warm-up
+			System.out.printf("%dx%d density %.2f: scalar BFS %d in %.1f ms | wavefront %d in %.1f ms (+%.1f ms setup)"
+					+ " | reachability %b in %.1f ms%s%n", side, side, density, expected, (t1 - t0) / 1e6,
+					result.getCost(), (t3 - t2) / 1e6, (t2 - t1) / 1e6, connected, (t4 - t3) / 1e6,
+					result.getCost() == expected && connected == (expected >= 0) ? "" : "  MISMATCH");
+		}
+	}
+}
@@ -0,0 +1,82 @@
+/**
+ * Dial's bucket queue for small non-negative integer priorities.
+ * Keeps a ring of (maxStep + 1) buckets; valid as long as every pushed key is between the last popped
+ * key and last popped key + maxStep, which holds for Dijkstra with edge costs <= maxStep and for A*
+ * with a consistent heuristic. Push and pop are O(1) amortized.
+ */
+public class DialQueue {
+
+	private final IntList[] buckets;	// Ring of buckets, bucket for key k is k % buckets.length
+	private int current;				// Key of the bucket currently being drained
+	private int size;
+
+	public DialQueue(int maxStep) {
+		if (maxStep < 0) {
+			throw new IllegalArgumentException("maxStep must be >= 0: " + maxStep);
+		}
+		buckets = new IntList[maxStep + 1];
+		for (int i = 0; i < buckets.length; i++) {
+			buckets[i] = new IntList();
+		}
+	}
+
+	/**
+	 * Adds a value with the given key.
+	 * The key may not be lower than the last popped key or further ahead than maxStep.
+	 * An empty queue accepts any key, moving its window if the key falls outside it.
+	 */
+	public void push(int key, int value) {
+		if (size == 0 && (key < current || key - current >= buckets.length)) {
+			current = key;
+		}
+		if (key < current || key - current >= buckets.length) {
+			throw new IllegalArgumentException("Key " + key + " outside window [" + current + ", "
+					+ (current + buckets.length - 1) + "]");
+		}
+		buckets[key % buckets.length].push(value);
+		size++;
+	}
+
+	/**
+	 * Removes and returns a value with the smallest key.
+	 * The key itself is available afterwards through currentKey().
+	 */
+	public int pop() {
+		if (size == 0) {
+			throw new IllegalStateException("Queue is empty");
+		}
+		IntList bucket = buckets[current % buckets.length];
+		while (bucket.isEmpty()) {
+			current++;
+			bucket = buckets[current % buckets.length];
+		}
+		size--;
+		return bucket.pop();
+	}
+
+	// Key of the most recently popped value
+	public int currentKey() {
+		return current;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public int getMaxStep() {
+		return buckets.length - 1;
+	}
+
+	// Empties the queue and restarts keys from 0, keeping the bucket storage for reuse
+	public void clear() {
+		for (IntList bucket : buckets) {
+			bucket.clear();
+		}
+		current = 0;
+		size = 0;
+	}
+}
@@ -0,0 +1,203 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Memory-bounded (external-memory) BFS.
+ * Instead of a Node[][] prev matrix and an in-heap queue, every BFS layer is appended to a temp file
+ * as int records (cell << 2 | direction back to the parent), written and read sequentially through
+ * NIO channels with fixed-size direct buffers. The only per-cell structure kept in memory is the visited
+ * bitset (1 bit per cell).
+ *
+ * Since every cell is written once and a parent is always discovered before its children, the path is
+ * rebuilt by streaming the file backwards once, following the 2-bit direction codes from the target.
+ */
+public class ExternalBfs {
+
+	private static final int MIN_BUFFER = 4 * 1024;
+	private static final int MAX_BUFFER = 64 * 1024 * 1024;
+	private static final int MAX_CELLS = 1 << 30;	// Cell index must fit in a record next to 2 direction bits
+
+	private final Grid grid;
+	private final int bufferBytes;	// Size of each of the two I/O buffers
+	private final File tempDir;		// Directory for the layer file (null = system temp dir)
+	private long spilledBytes;		// Bytes written by the last search
+
+	/**
+	 * memoryBudget is in bytes and covers the visited bitset plus the two I/O buffers.
+	 * It has to be at least cells / 8 plus a few kilobytes.
+	 */
+	public ExternalBfs(Grid grid, long memoryBudget, File tempDir) {
+		if (grid.cells() > MAX_CELLS) {
+			throw new IllegalArgumentException("Maze too large for ExternalBfs: " + grid.cells() + " cells");
+		}
+		long bitset = ((grid.cells() + 63L) >>> 6) * 8;
+		long left = (memoryBudget - bitset) / 2;
+		if (left < MIN_BUFFER) {
+			throw new IllegalArgumentException("Memory budget of " + memoryBudget + " bytes is too small, need at least "
+					+ (bitset + 2 * MIN_BUFFER) + " for a " + grid.cells() + " cell maze");
+		}
+		this.grid = grid;
+		this.bufferBytes = (int) (Math.min(left, MAX_BUFFER) & ~3L); // Whole records only
+		this.tempDir = tempDir;
+	}
+
+	// Start-end search
+	public SearchResult search() throws IOException {
+		return search(grid.getStart(), grid.getTarget());
+	}
+
+	/**
+	 * BFS from source to goal. Expansions are the number of cells reached.
+	 * The temp file is deleted when the search ends.
+	 */
+	public SearchResult search(int source, int goal) throws IOException {
+		spilledBytes = 0;
+		if (source < 0 || goal < 0 || grid.isWall(source) || grid.isWall(goal)) {
+			return SearchResult.notFound(0);
+		}
+
+		long[] visited = new long[(grid.cells() + 63) >>> 6];
+		Path file = tempDir == null ? Files.createTempFile("maze-bfs-", ".bin")
+				: Files.createTempFile(tempDir.toPath(), "maze-bfs-", ".bin");
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+				StandardOpenOption.DELETE_ON_CLOSE)) {
+			LayerWriter out = new LayerWriter(channel, ByteBuffer.allocateDirect(bufferBytes));
+			ByteBuffer in = ByteBuffer.allocateDirect(bufferBytes);
+
+			visited[source >>> 6] |= 1L << source;
+			out.append(source << 2);
+			out.flush();
+			long layerStart = 0;
+			long layerEnd = out.position();
+			long reached = 1;
+			int level = 0;
+			boolean found = source == goal;
+			int[] around = new int[4];
+
+			// Stream the current layer from the file while appending the next one behind it
+			while (!found && layerEnd > layerStart) {
+				level++;
+				long readPosition = layerStart;
+				in.clear().limit(0);
+				while (!found && (in.hasRemaining() || readPosition < layerEnd)) {
+					if (!in.hasRemaining()) {
+						in.clear().limit((int) Math.min(in.capacity(), layerEnd - readPosition));
+						while (in.hasRemaining()) {
+							readPosition += channel.read(in, readPosition);
+						}
+						in.flip();
+					}
+					int cell = in.getInt() >>> 2;
+					int count = grid.neighbours(cell, around);
+					for (int n = 0; n < count; n++) {
+						int next = around[n];
+						if ((visited[next >>> 6] & (1L << next)) != 0) continue;
+						visited[next >>> 6] |= 1L << next;
+						out.append((next << 2) | grid.direction(next, cell));
+						reached++;
+						if (next == goal) {
+							found = true;
+							break;
+						}
+					}
+				}
+				out.flush();
+				layerStart = layerEnd;
+				layerEnd = out.position();
+			}
+			spilledBytes = out.position();
+
+			if (!found) {
+				return SearchResult.notFound(reached);
+			}
+			return new SearchResult(backtrack(channel, in, out.position(), source, goal), level, reached);
+		}
+	}
+
+	/**
+	 * Reads the layer file from the end to the start in buffer-sized blocks, following direction codes
+	 * from goal to source. Parents always sit earlier in the file than their children, so one pass is enough.
+	 */
+	private int[] backtrack(FileChannel channel, ByteBuffer in, long end, int source, int goal) throws IOException {
+		IntList path = new IntList();
+		path.add(goal);
+		int wanted = goal;
+		long position = end;
+		while (wanted != source && position > 0) {
+			long blockStart = Math.max(0, position - in.capacity());
+			in.clear().limit((int) (position - blockStart));
+			long read = blockStart;
+			while (in.hasRemaining()) {
+				read += channel.read(in, read);
+			}
+			for (int i = in.limit() - 4; i >= 0 && wanted != source; i -= 4) {
+				int record = in.getInt(i);
+				if (record >>> 2 == wanted) {
+					wanted = grid.move(wanted, record & 3);
+					path.add(wanted);
+				}
+			}
+			position = blockStart;
+		}
+		path.reverse();
+		return path.toArray();
+	}
+
+	// Bytes written to the layer file by the last search
+	public long getSpilledBytes() {
+		return spilledBytes;
+	}
+
+	// Buffered sequential appender for int records
+	private static class LayerWriter {
+		private final FileChannel channel;
+		private final ByteBuffer buffer;
+		private long position;	// File position of the next flushed byte
+
+		LayerWriter(FileChannel channel, ByteBuffer buffer) {
+			this.channel = channel;
+			this.buffer = buffer;
+		}
+
+		void append(int record) throws IOException {
+			if (!buffer.hasRemaining()) {
+				flush();
+			}
+			buffer.putInt(record);
+		}
+
+		void flush() throws IOException {
+			buffer.flip();
+			while (buffer.hasRemaining()) {
+				position += channel.write(buffer, position);
+			}
+			buffer.clear();
+		}
+
+		// End of the data written so far, including what is still buffered
+		long position() {
+			return position + buffer.position();
+		}
+	}
+
+	/**
+	 * Solves a generated perfect maze within a memory budget.
+	 * Usage: ExternalBfs [side] [budget in MB]
+	 */
+	public static void main(String[] args) throws IOException {
+		int side = args.length > 0 ? Integer.parseInt(args[0]) : 3163;
+		long budget = (args.length > 1 ? Long.parseLong(args[1]) : 8) * 1024 * 1024;
+		Grid grid = MazeGenerator.perfect(side, side, 1);
+		long start = System.nanoTime();
+		ExternalBfs bfs = new ExternalBfs(grid, budget, null);
+		SearchResult result = bfs.search();
+		long end = System.nanoTime();
+		System.out.printf("%dx%d maze, budget %d MB: %s in %.1f ms, %d MB spilled%n", side, side, budget >> 20, result,
+				(end - start) / 1e6, bfs.getSpilledBytes() >> 20);
+	}
+}
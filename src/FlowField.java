@@ -0,0 +1,201 @@
+import java.awt.Color;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Distance / flow field towards one target.
+ * A single backwards search from the target stores, for every cell, the cost to reach the target
+ * and one direction byte pointing at the next cell on a shortest path. Any start's path is then
+ * just a walk along the direction bytes, so many agents heading to the same target cost one
+ * search in total instead of one search each.
+ * Fields are cached per (maze layout, target).
+ */
+public class FlowField {
+
+	public static final byte NONE = -1;			// Direction of the target cell and of unreachable cells
+	private static final long CACHE_BYTES = 256L << 20;	// Memory the cached fields may take together
+	private static final Color[] HEAT = heatPalette(256);	// heatColor() by distance step
+
+	// Least recently used cache keyed by maze hash and target cell, trimmed to CACHE_BYTES
+	private static final Map<String, FlowField> cache = new LinkedHashMap<>(16, 0.75f, true);
+	private static long cachedBytes;
+
+	private final Grid grid;
+	private final int target;
+	private final int[] dist;		// Cost from each cell to the target (-1 = unreachable)
+	private final byte[] next;		// Direction of the next step towards the target
+	private int maxDistance;		// Largest finite distance (used to scale the heatmap)
+
+	private FlowField(Grid grid, int target) {
+		this.grid = grid;
+		this.target = target;
+		this.dist = new int[grid.cells()];
+		this.next = new byte[grid.cells()];
+		Arrays.fill(dist, -1);
+		Arrays.fill(next, NONE);
+		if (target >= 0 && grid.isOpen(target)) {
+			if (grid.isWeighted()) {
+				searchWeighted();
+			} else {
+				searchUnweighted();
+			}
+		}
+	}
+
+	/**
+	 * Returns the field towards target, computing it only if it is not cached
+	 * for this maze layout yet. A cache hit costs O(1) (the grid keeps its content hash).
+	 */
+	public static FlowField forTarget(Grid grid, int target) {
+		String key = grid.contentHash() + ":" + target;
+		synchronized (cache) {
+			FlowField field = cache.get(key);
+			if (field != null) {
+				return field;
+			}
+		}
+		FlowField field = new FlowField(grid, target);
+		synchronized (cache) {
+			FlowField replaced = cache.put(key, field);
+			cachedBytes += field.bytes() - (replaced == null ? 0 : replaced.bytes());
+			// Drop the least recently used fields, always keeping the newest one
+			Iterator<FlowField> eldest = cache.values().iterator();
+			while (cachedBytes > CACHE_BYTES && cache.size() > 1) {
+				cachedBytes -= eldest.next().bytes();
+				eldest.remove();
+			}
+		}
+		return field;
+	}
+
+	// Memory held by the field: an int distance and a direction byte per cell
+	private long bytes() {
+		return 5L * dist.length;
+	}
+
+	// True if the field towards target is cached for this maze layout
+	public static boolean isCached(Grid grid, int target) {
+		String key = grid.contentHash() + ":" + target;
+		synchronized (cache) {
+			return cache.containsKey(key);
+		}
+	}
+
+	// Drops every cached field
+	public static void clearCache() {
+		synchronized (cache) {
+			cache.clear();
+			cachedBytes = 0;
+		}
+	}
+
+	// Plain BFS from the target, every move costs 1
+	private void searchUnweighted() {
+		int[] queue = new int[grid.cells()];
+		int head = 0;
+		int tail = 0;
+		int[] around = new int[4];
+		dist[target] = 0;
+		queue[tail++] = target;
+		while (head < tail) {
+			int cell = queue[head++];
+			int count = grid.neighbours(cell, around);
+			for (int n = 0; n < count; n++) {
+				int from = around[n];
+				if (dist[from] < 0) {
+					dist[from] = dist[cell] + 1;
+					next[from] = (byte) grid.direction(from, cell);
+					queue[tail++] = from;
+				}
+			}
+		}
+		maxDistance = dist[queue[tail - 1]];
+	}
+
+	// Dijkstra from the target; stepping from a cell onto its neighbour costs the neighbour's cost
+	private void searchWeighted() {
+		DialQueue open = new DialQueue(grid.getMaxCost());
+		int[] around = new int[4];
+		dist[target] = 0;
+		open.push(0, target);
+		while (!open.isEmpty()) {
+			int cell = open.pop();
+			if (open.currentKey() > dist[cell]) continue; // Stale entry
+			maxDistance = Math.max(maxDistance, dist[cell]);
+
+			int count = grid.neighbours(cell, around);
+			for (int n = 0; n < count; n++) {
+				int from = around[n];
+				int candidate = dist[cell] + grid.cost(cell);
+				if (dist[from] < 0 || candidate < dist[from]) {
+					dist[from] = candidate;
+					next[from] = (byte) grid.direction(from, cell);
+					open.push(candidate, from);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Path from start to the target by following the direction bytes, O(path length).
+	 * No search is done, so the result reports zero expansions.
+	 */
+	public SearchResult path(int start) {
+		if (start < 0 || dist[start] < 0) {
+			return SearchResult.notFound(0);
+		}
+		IntList path = new IntList(dist[start] + 1);
+		int cell = start;
+		path.add(cell);
+		while (cell != target) {
+			cell = grid.move(cell, next[cell]);
+			path.add(cell);
+		}
+		return new SearchResult(path.toArray(), dist[start], 0);
+	}
+
+	// Cost from a cell to the target (-1 if unreachable)
+	public int distance(int cell) {
+		return dist[cell];
+	}
+
+	// Direction of the next step towards the target (NONE at the target or if unreachable)
+	public byte direction(int cell) {
+		return next[cell];
+	}
+
+	public Grid getGrid() {
+		return grid;
+	}
+
+	public int getTarget() {
+		return target;
+	}
+
+	public int getMaxDistance() {
+		return maxDistance;
+	}
+
+	/**
+	 * Heatmap color of a cell: blue near the target through to red far away,
+	 * translucent so walls and search colors stay visible. Null for unreachable cells.
+	 */
+	public Color heatColor(int cell) {
+		if (dist[cell] < 0) {
+			return null;
+		}
+		return HEAT[maxDistance == 0 ? 0 : (int) ((long) dist[cell] * (HEAT.length - 1) / maxDistance)];
+	}
+
+	// Heatmap colors from the target (index 0) to the farthest cell, shared by every field and frame
+	private static Color[] heatPalette(int levels) {
+		Color[] palette = new Color[levels];
+		for (int i = 0; i < levels; i++) {
+			Color base = Color.getHSBColor(0.66f * (1 - (float) i / (levels - 1)), 0.85f, 1f);
+			palette[i] = new Color(base.getRed(), base.getGreen(), base.getBlue(), 120);
+		}
+		return palette;
+	}
+}
@@ -0,0 +1,465 @@
+// Required imports for grid class
+import java.awt.Color;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compact, GUI-independent representation of a maze.
+ * Cells are addressed by a single int index (y * width + x) and walls are kept in a bitset,
+ * so solvers can work on large mazes without allocating a Node object per cell.
+ * Open cells may carry a small traversal cost (1 by default, 4-9 for terrain).
+ */
+public class Grid {
+
+	// Move directions, in the same order as neighbours() reports them
+	public static final int LEFT = 0;
+	public static final int DOWN = 1;
+	public static final int RIGHT = 2;
+	public static final int UP = 3;
+
+	// Mazes with more cells than this are loaded into an OffHeapGrid (also the largest maze shown as a Node board)
+	public static final int LARGE_MAZE_CELLS = 250000;
+
+	private final int width;	// Number of columns (x)
+	private final int height;	// Number of rows (y)
+	private final long[] walls;	// One bit per cell, set = wall
+	private byte[] costs;		// Cost of entering each cell, null while every cell costs 1
+	private int maxCost = 1;	// Largest cell cost in use
+
+	// Summaries of the cells, computed on first use and dropped by cellsChanged()
+	private volatile boolean hashed;
+	private long hash;
+	private volatile int open = -1;
+
+	private int start = -1;		// Start cell index (-1 if not set)
+	private int target = -1;	// Target cell index (-1 if not set)
+
+	// Creates an empty (wall-free) grid
+	public Grid(int width, int height) {
+		if (width <= 0 || height <= 0) {
+			throw new IllegalArgumentException("Grid dimensions must be positive: " + width + "x" + height);
+		}
+		this.width = width;
+		this.height = height;
+		this.walls = new long[(int) (((long) width * height + 63) >>> 6)];
+	}
+
+	/**
+	 * For subclasses that keep walls and costs in their own storage (see OffHeapGrid).
+	 * They must override every method that touches the cells: isWall, setWall, wallWord, cost, setCost,
+	 * isWeighted, getMaxCost, getMinCost, hashCells and countOpen, and call cellsChanged() from setWall and setCost.
+	 */
+	protected Grid(int width, int height, boolean allocate) {
+		if (width <= 0 || height <= 0 || (long) width * height > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Grid dimensions out of range: " + width + "x" + height);
+		}
+		this.width = width;
+		this.height = height;
+		this.walls = allocate ? new long[(int) (((long) width * height + 63) >>> 6)] : null;
+	}
+
+	/**
+	 * Builds a grid snapshot from the GUI node matrix (nodes[x][y]).
+	 * Walls, start and end are taken from the node colors.
+	 */
+	public static Grid fromNodes(Node[][] nodes) {
+		Grid grid = new Grid(nodes.length, nodes[0].length);
+		for (int x = 0; x < nodes.length; x++) {
+			for (int y = 0; y < nodes[x].length; y++) {
+				Node node = nodes[x][y];
+				int cell = grid.index(x, y);
+				if (node.getWeight() > 1) {
+					grid.setCost(cell, node.getWeight());
+				}
+				if (node.isWall()) {
+					grid.setWall(cell, true);
+				} else if (node.isStart()) {
+					grid.start = cell;
+				} else if (node.isEnd()) {
+					grid.target = cell;
+				}
+			}
+		}
+		return grid;
+	}
+
+	/**
+	 * Loads a '.maze' file without going through the GUI.
+	 * Same layout as Main.openMaze: each line is one column (x), each character one row (y).
+	 * 0 = normal, 1 = wall, 2 = start, 3 = end, 4-9 = terrain costing that many moves
+	 * Mazes above LARGE_MAZE_CELLS are streamed into an OffHeapGrid without keeping their lines.
+	 */
+	public static Grid load(File file) throws IOException {
+		if (file.length() > LARGE_MAZE_CELLS) { // Only then can the file hold that many cells
+			int[] size = OffHeapGrid.measure(file);
+			if ((long) size[0] * size[1] > LARGE_MAZE_CELLS) {
+				return OffHeapGrid.load(file, size[0], size[1]);
+			}
+		}
+		List<String> lines = new ArrayList<>();
+		try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (!line.isEmpty()) {
+					lines.add(line);
+				}
+			}
+		}
+		try {
+			return parse(lines);
+		} catch (IOException e) {
+			throw new IOException(e.getMessage() + " in " + file, e);
+		}
+	}
+
+	/**
+	 * Builds a grid from the non-empty lines of a '.maze' file, for callers that already read them.
+	 * Mazes above LARGE_MAZE_CELLS go into an OffHeapGrid, as with load.
+	 */
+	public static Grid parse(List<String> lines) throws IOException {
+		if (lines.isEmpty()) {
+			throw new IOException("Empty maze");
+		}
+
+		int columns = lines.size();
+		int rows = lines.get(0).length();
+		Grid grid = (long) columns * rows > LARGE_MAZE_CELLS ? new OffHeapGrid(columns, rows) : new Grid(columns, rows);
+		for (int x = 0; x < columns; x++) {
+			String line = lines.get(x);
+			if (line.length() != rows) {
+				throw new IOException("Ragged maze at line " + (x + 1));
+			}
+			for (int y = 0; y < rows; y++) {
+				int cell = grid.index(x, y);
+				switch (line.charAt(y)) {
+				case '1':
+					grid.setWall(cell, true);
+					break;
+				case '2':
+					grid.start = cell;
+					break;
+				case '3':
+					grid.target = cell;
+					break;
+				case '4': case '5': case '6': case '7': case '8': case '9':
+					grid.setCost(cell, line.charAt(y) - '0');
+					break;
+				default:
+					break;
+				}
+			}
+		}
+		return grid;
+	}
+
+	/**
+	 * Writes the grid as a '.maze' file (the format load reads).
+	 */
+	public void save(File file) throws IOException {
+		try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
+			char[] line = new char[height];
+			for (int x = 0; x < width; x++) {
+				for (int y = 0; y < height; y++) {
+					int cell = index(x, y);
+					if (cell == start) {
+						line[y] = '2';
+					} else if (cell == target) {
+						line[y] = '3';
+					} else if (isWall(cell)) {
+						line[y] = '1';
+					} else {
+						line[y] = cost(cell) > 1 ? (char) ('0' + cost(cell)) : '0';
+					}
+				}
+				writer.write(line);
+				writer.newLine();
+			}
+		}
+	}
+
+	/**
+	 * Copies this grid's walls, start and end back onto the GUI node matrix.
+	 * The matrix must have the same dimensions as the grid.
+	 */
+	public void applyTo(Node[][] nodes) {
+		for (int x = 0; x < width; x++) {
+			for (int y = 0; y < height; y++) {
+				int cell = index(x, y);
+				nodes[x][y].setWeight(cost(cell));
+				if (cell == start) {
+					nodes[x][y].setColor(Color.GREEN);
+				} else if (cell == target) {
+					nodes[x][y].setColor(Color.RED);
+				} else if (isWall(cell)) {
+					nodes[x][y].setColor(Color.BLACK);
+				} else {
+					nodes[x][y].clearNode();
+				}
+			}
+		}
+	}
+
+	// Converts (x, y) to a cell index
+	public int index(int x, int y) {
+		return y * width + x;
+	}
+
+	public int x(int cell) {
+		return cell % width;
+	}
+
+	public int y(int cell) {
+		return cell / width;
+	}
+
+	public boolean isWall(int cell) {
+		return (walls[cell >>> 6] & (1L << cell)) != 0;
+	}
+
+	public boolean isOpen(int cell) {
+		return !isWall(cell);
+	}
+
+	public void setWall(int cell, boolean wall) {
+		if (wall) {
+			walls[cell >>> 6] |= 1L << cell;
+		} else {
+			walls[cell >>> 6] &= ~(1L << cell);
+		}
+		cellsChanged();
+	}
+
+	/**
+	 * Word index of the wall bitset (bit c of word c / 64 is set for walls), for solvers that work on
+	 * whole words. Read in place, so word-parallel solvers never copy the walls.
+	 */
+	long wallWord(int index) {
+		return walls[index];
+	}
+
+	// Number of words in the wall bitset
+	int wallWords() {
+		return (cells() + 63) >>> 6;
+	}
+
+	// Cost of stepping onto a cell
+	public int cost(int cell) {
+		return costs == null ? 1 : costs[cell];
+	}
+
+	/**
+	 * Sets the cost of stepping onto a cell (1-9).
+	 * The cost plane is only allocated once a cell costs more than 1.
+	 */
+	public void setCost(int cell, int cost) {
+		if (cost < 1 || cost > 9) {
+			throw new IllegalArgumentException("Cell cost must be between 1 and 9: " + cost);
+		}
+		if (costs == null) {
+			if (cost == 1) return;
+			costs = new byte[cells()];
+			Arrays.fill(costs, (byte) 1);
+		}
+		costs[cell] = (byte) cost;
+		maxCost = Math.max(maxCost, cost);
+		cellsChanged();
+	}
+
+	public boolean isWeighted() {
+		return costs != null;
+	}
+
+	// Upper bound on the cost of any single move
+	public int getMaxCost() {
+		return maxCost;
+	}
+
+	/**
+	 * Smallest cost of entering an open cell.
+	 * Multiplied with the Manhattan distance this gives an admissible A* heuristic.
+	 */
+	public int getMinCost() {
+		if (costs == null) return 1;
+		int min = maxCost;
+		for (int cell = 0; cell < costs.length && min > 1; cell++) {
+			if (isOpen(cell) && costs[cell] < min) {
+				min = costs[cell];
+			}
+		}
+		return min;
+	}
+
+	/**
+	 * Writes the open neighbours of a cell into out (size >= 4) and returns how many there are.
+	 * Order matches Node.getNeighbours(): left, down, right, up.
+	 */
+	public int neighbours(int cell, int[] out) {
+		int x = cell % width;
+		int y = cell / width;
+		int count = 0;
+		if (x > 0 && isOpen(cell - 1))
+			out[count++] = cell - 1;
+		if (y < height - 1 && isOpen(cell + width))
+			out[count++] = cell + width;
+		if (x < width - 1 && isOpen(cell + 1))
+			out[count++] = cell + 1;
+		if (y > 0 && isOpen(cell - width))
+			out[count++] = cell - width;
+		return count;
+	}
+
+	// Cell reached by moving one step in the given direction (no bounds check)
+	public int move(int cell, int direction) {
+		switch (direction) {
+		case LEFT:
+			return cell - 1;
+		case DOWN:
+			return cell + width;
+		case RIGHT:
+			return cell + 1;
+		default:
+			return cell - width;
+		}
+	}
+
+	// Direction of the single step from one cell to an adjacent one
+	public int direction(int from, int to) {
+		int diff = to - from;
+		if (diff == width) return DOWN;
+		if (diff == -width) return UP;
+		return diff == 1 ? RIGHT : LEFT;
+	}
+
+	// Manhattan distance between two cells
+	public int manhattan(int a, int b) {
+		return Math.abs(x(a) - x(b)) + Math.abs(y(a) - y(b));
+	}
+
+	/**
+	 * Breadth-first move counts from a source cell to every cell (terrain costs ignored).
+	 * Walls and unreachable cells get -1.
+	 */
+	public int[] bfsDistances(int source) {
+		int[] dist = new int[cells()];
+		Arrays.fill(dist, -1);
+		if (isWall(source)) return dist;
+
+		int[] queue = new int[cells()]; // Every cell is enqueued at most once
+		int head = 0;
+		int tail = 0;
+		int[] around = new int[4];
+		dist[source] = 0;
+		queue[tail++] = source;
+		while (head < tail) {
+			int cell = queue[head++];
+			int count = neighbours(cell, around);
+			for (int n = 0; n < count; n++) {
+				if (dist[around[n]] < 0) {
+					dist[around[n]] = dist[cell] + 1;
+					queue[tail++] = around[n];
+				}
+			}
+		}
+		return dist;
+	}
+
+	// Seed of contentHash()
+	static final long HASH_SEED = 0xcbf29ce484222325L;
+
+	/**
+	 * 64-bit hash of the maze layout (dimensions, walls and terrain costs, not start/end).
+	 * Used to tell whether cached preprocessing still belongs to this maze.
+	 * Computed once and kept until a wall or cost changes, so asking again is O(1).
+	 */
+	public long contentHash() {
+		if (!hashed) {
+			hash = hashCells();
+			hashed = true;
+		}
+		return hash;
+	}
+
+	// Number of non-wall cells, counted once and kept until a wall changes
+	public int openCells() {
+		int count = open;
+		if (count < 0) {
+			count = countOpen();
+			open = count;
+		}
+		return count;
+	}
+
+	// Drops the cached hash and open cell count; called by every method that changes a wall or cost
+	protected void cellsChanged() {
+		if (hashed) hashed = false;
+		if (open >= 0) open = -1;
+	}
+
+	// contentHash() computed from the cells, O(cells)
+	protected long hashCells() {
+		long hash = HASH_SEED;
+		hash = mix(hash, width);
+		hash = mix(hash, height);
+		for (long word : walls) {
+			hash = mix(hash, word);
+		}
+		if (costs != null) {
+			for (int cell = 0; cell < costs.length; cell++) {
+				if (costs[cell] != 1) {
+					hash = mix(hash, ((long) cell << 8) | costs[cell]);
+				}
+			}
+		}
+		return hash;
+	}
+
+	static long mix(long hash, long value) {
+		hash ^= value;
+		hash *= 0x100000001b3L;
+		return hash ^ (hash >>> 29);
+	}
+
+	// openCells() counted from the wall bits
+	protected int countOpen() {
+		int walled = 0;
+		for (long word : walls) {
+			walled += Long.bitCount(word);
+		}
+		return cells() - walled;
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	public int cells() {
+		return width * height;
+	}
+
+	public int getStart() {
+		return start;
+	}
+
+	public void setStart(int start) {
+		this.start = start;
+	}
+
+	public int getTarget() {
+		return target;
+	}
+
+	public void setTarget(int target) {
+		this.target = target;
+	}
+}
@@ -0,0 +1,248 @@
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.io.File;
+import java.util.Arrays;
+
+/**
+ * GUI view of a maze too large for a Node board.
+ * The maze stays a Grid (one bit per wall) and search results are kept in a byte per cell overlay,
+ * so a 10,000x10,000 maze costs a few hundred MB instead of 10^8 Node objects. Overlay bytes carry
+ * a search epoch, so clearing the results only touches every byte once every 63 clears.
+ * Changes are tracked per Viewport.BLOCK square, so the zoomed out view only rebuilds the tiles a search touched.
+ * Searches run headless (the same solvers as the board versions) and are shown without animation.
+ * The view is read-only: cells can't be edited.
+ */
+public class GridView implements Viewport.Source {
+
+	// Algorithms the view can run (the Algorithms menu entries)
+	public static final String BFS = "BFS";
+	public static final String DFS = "DFS";
+	public static final String ASTAR = "A*";
+	public static final String DIJKSTRA = "Dijkstra";
+	public static final String ALT = "ALT A*";
+	public static final String JUNCTION = "Junction Graph";
+	public static final String DEAD_END = "Dead-end filling";
+	public static final String FLOW_FIELD = "Flow Field";
+
+	// Overlay states
+	private static final byte NONE = 0;
+	private static final byte SEARCHED = 1;
+	private static final byte FILLED = 2;
+	private static final byte PATH = 3;
+
+	private static final int EPOCHS = 63;	// Epochs that fit in the 6 high bits of an overlay byte
+
+	private static final int[] OVERLAY_RGB = { 0, Color.BLUE.getRGB(), Color.DARK_GRAY.getRGB(), Color.ORANGE.getRGB() };
+
+	private final Grid grid;
+	private final File file;			// File the maze was loaded from
+	private final byte[] overlay;		// (epoch << 2) | state; states of older epochs read as NONE
+	private int epoch = 1;
+	private volatile FlowField heatmap;
+	private volatile long version;		// Bumped whenever the overlay changes
+	private final int blockColumns;
+	private final long[] blockVersions;	// Version at which each block's overlay last changed
+	private final boolean[] marked;		// Blocks with overlay cells in the current epoch
+	private long everything;			// Version of the last change to every cell (the heatmap)
+	private final ScratchArena arena = new ScratchArena();	// Working arrays shared by the solves below
+	private AnytimeSearch anytime;		// Created by the first anytime solve, reused by later ones (the grid never changes)
+
+	public GridView(Grid grid, File file) {
+		this.grid = grid;
+		this.file = file;
+		this.overlay = new byte[grid.cells()];
+		this.blockColumns = (grid.getWidth() + Viewport.BLOCK - 1) / Viewport.BLOCK;
+		int blocks = blockColumns * ((grid.getHeight() + Viewport.BLOCK - 1) / Viewport.BLOCK);
+		this.blockVersions = new long[blocks];
+		this.marked = new boolean[blocks];
+	}
+
+	// Runs one of the algorithms above and shows its result
+	public void solve(String algorithm) {
+		if (grid.getStart() < 0 || grid.getTarget() < 0) {
+			System.out.println("DIDNT LAUNCH");
+			return;
+		}
+		clearSearch();
+		long startTime = System.currentTimeMillis();
+		SearchResult result;
+		switch (algorithm) {
+		case BFS:
+			result = ParallelBfs.solve(grid);
+			break;
+		case DFS:
+			IntList visits = new IntList();
+			result = new IterativeDfs(grid).dfs(grid.getStart(), grid.getTarget(), visits, arena);
+			for (int i = 0; i < visits.size(); i++) {
+				mark(visits.get(i), SEARCHED);
+			}
+			break;
+		case DIJKSTRA:
+			result = WeightedSearch.search(grid, grid.getStart(), grid.getTarget(), Heuristic.none(), arena);
+			break;
+		case ALT:
+			Landmarks landmarks = Landmarks.loadOrCompute(grid, file, Landmarks.DEFAULT_COUNT);
+			result = WeightedSearch.search(grid, grid.getStart(), grid.getTarget(), landmarks, arena);
+			break;
+		case JUNCTION:
+		case DEAD_END:
+			JunctionGraph graph = JunctionGraph.build(grid, true);
+			for (int cell = 0; cell < overlay.length; cell++) {
+				if (graph.isFilled(cell)) {
+					mark(cell, FILLED);
+				}
+			}
+			result = algorithm.equals(JUNCTION) ? graph.solve(false) : SearchResult.notFound(0);
+			break;
+		case FLOW_FIELD:
+			FlowField field = FlowField.forTarget(grid, grid.getTarget());
+			result = field.path(grid.getStart());
+			heatmap = field;
+			everything = version + 1;
+			break;
+		default:
+			result = WeightedSearch.search(grid, grid.getStart(), grid.getTarget(), Heuristic.manhattan(grid), arena);
+			break;
+		}
+		long endTime = System.currentTimeMillis();
+		System.out.println(algorithm + " Runtime: " + (endTime - startTime) + " ms, " + result);
+
+		if (result.isFound()) {
+			for (int cell : result.getPath()) {
+				mark(cell, PATH);
+			}
+		}
+		version++;
+	}
+
+	// Lets AlgorithmSelector pick the algorithm, logs why and runs it
+	public void solveAuto() {
+		if (grid.getStart() < 0 || grid.getTarget() < 0) {
+			System.out.println("DIDNT LAUNCH");
+			return;
+		}
+		AlgorithmSelector.Choice choice = AlgorithmSelector.choose(grid, file);
+		System.out.println(choice);
+		solve(choice.getAlgorithm());
+	}
+
+	// Anytime A* within a time budget, showing the best or partial path found
+	public void solveAnytime(long budgetMillis) {
+		if (grid.getStart() < 0 || grid.getTarget() < 0) {
+			System.out.println("DIDNT LAUNCH");
+			return;
+		}
+		clearSearch();
+		long startTime = System.currentTimeMillis();
+		if (anytime == null) {
+			anytime = new AnytimeSearch(grid);
+		}
+		AnytimeSearch.Result result = anytime.search(budgetMillis);
+		long endTime = System.currentTimeMillis();
+		System.out.println("Anytime A* Runtime: " + (endTime - startTime) + " ms, " + result);
+		for (int cell : result.getResult().getPath()) {
+			mark(cell, PATH);
+		}
+		version++;
+	}
+
+	// Removes search results and the heatmap
+	public void clearSearch() {
+		if (epoch == EPOCHS) {
+			Arrays.fill(overlay, NONE);
+			epoch = 0;
+		}
+		epoch++;
+		if (heatmap != null) {
+			heatmap = null;
+			everything = version + 1;
+		}
+		for (int block = 0; block < marked.length; block++) {
+			if (marked[block]) {
+				blockVersions[block] = version + 1;
+				marked[block] = false;
+			}
+		}
+		version++;
+	}
+
+	// Sets an overlay state; the caller bumps version once it is done marking
+	private void mark(int cell, byte state) {
+		overlay[cell] = (byte) (epoch << 2 | state);
+		int block = grid.x(cell) / Viewport.BLOCK + grid.y(cell) / Viewport.BLOCK * blockColumns;
+		blockVersions[block] = version + 1;
+		marked[block] = true;
+	}
+
+	// Overlay state of a cell in the current epoch
+	private int state(int cell) {
+		int stamped = overlay[cell] & 0xff;
+		return stamped >>> 2 == epoch ? stamped & 3 : NONE;
+	}
+
+	public Grid getGrid() {
+		return grid;
+	}
+
+	public File getFile() {
+		return file;
+	}
+
+	@Override
+	public int getColumns() {
+		return grid.getWidth();
+	}
+
+	@Override
+	public int getRows() {
+		return grid.getHeight();
+	}
+
+	@Override
+	public int rgb(int x, int y) {
+		int cell = grid.index(x, y);
+		int rgb;
+		if (grid.isWall(cell)) {
+			rgb = Color.BLACK.getRGB();
+		} else if (cell == grid.getStart()) {
+			rgb = Color.GREEN.getRGB();
+		} else if (cell == grid.getTarget()) {
+			rgb = Color.RED.getRGB();
+		} else if (state(cell) != NONE) {
+			rgb = OVERLAY_RGB[state(cell)];
+		} else {
+			rgb = Color.LIGHT_GRAY.getRGB();
+		}
+		FlowField field = heatmap;
+		if (field != null) {
+			rgb = Viewport.blend(rgb, field.heatColor(cell));
+		}
+		return rgb;
+	}
+
+	// Same look as Node.render
+	@Override
+	public void renderCell(Graphics2D g, int x, int y) {
+		int px = Viewport.MARGIN + x * Viewport.CELL;
+		int py = Viewport.MARGIN + y * Viewport.CELL;
+		int cell = grid.index(x, y);
+		g.setColor(Color.BLACK);
+		g.drawRect(px, py, Viewport.CELL, Viewport.CELL);
+		g.setColor(new Color(rgb(x, y)));
+		g.fillRect(px + 1, py + 1, Viewport.CELL - 1, Viewport.CELL - 1);
+		if (grid.cost(cell) > 1 && !grid.isWall(cell)) {
+			g.setColor(Color.DARK_GRAY);
+			g.drawString(Integer.toString(grid.cost(cell)), px + Viewport.CELL / 2 - 3, py + Viewport.CELL / 2 + 5);
+		}
+	}
+
+	@Override
+	public long version() {
+		return version;
+	}
+
+	@Override
+	public long version(int blockX, int blockY) {
+		return Math.max(everything, blockVersions[blockY * blockColumns + blockX]);
+	}
+}
@@ -0,0 +1,22 @@
+/**
+ * Lower bound on the remaining cost from a cell to the goal, used by the Grid based A* solvers.
+ * Implementations must be admissible and consistent (h(a) <= cost(a, b) + h(b) for neighbours).
+ */
+public interface Heuristic {
+
+	int estimate(int cell, int goal);
+
+	/**
+	 * Manhattan distance scaled by the cheapest cell cost of the grid.
+	 * Every move costs at least that much, so the estimate never overshoots.
+	 */
+	static Heuristic manhattan(Grid grid) {
+		int minCost = grid.getMinCost();
+		return (cell, goal) -> minCost * grid.manhattan(cell, goal);
+	}
+
+	// Zero heuristic, turns A* into Dijkstra
+	static Heuristic none() {
+		return (cell, goal) -> 0;
+	}
+}
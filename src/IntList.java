@@ -0,0 +1,73 @@
+import java.util.Arrays;
+
+/**
+ * Growable list of primitive ints.
+ * Used by the Grid based solvers instead of List<Integer> to avoid boxing a value per cell.
+ * Also doubles as a LIFO stack through push/pop.
+ */
+public class IntList {
+
+	private int[] data;
+	private int size;
+
+	public IntList() {
+		this(16);
+	}
+
+	public IntList(int capacity) {
+		data = new int[Math.max(capacity, 1)];
+	}
+
+	public void add(int value) {
+		if (size == data.length) {
+			data = Arrays.copyOf(data, size + (size >> 1) + 1);
+		}
+		data[size++] = value;
+	}
+
+	public int get(int index) {
+		return data[index];
+	}
+
+	public void set(int index, int value) {
+		data[index] = value;
+	}
+
+	// Stack style access
+	public void push(int value) {
+		add(value);
+	}
+
+	public int pop() {
+		return data[--size];
+	}
+
+	public int peek() {
+		return data[size - 1];
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public void clear() {
+		size = 0;
+	}
+
+	// Reverses the list in place (used when rebuilding paths backwards)
+	public void reverse() {
+		for (int i = 0, j = size - 1; i < j; i++, j--) {
+			int tmp = data[i];
+			data[i] = data[j];
+			data[j] = tmp;
+		}
+	}
+
+	public int[] toArray() {
+		return Arrays.copyOf(data, size);
+	}
+}
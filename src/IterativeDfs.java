@@ -0,0 +1,204 @@
+/**
+ * Stack-safe depth-first search engine for very large mazes.
+ * Replaces recursion with an explicit stack of primitive ints (one frame per cell on the current path:
+ * cell << 3 | next direction to try) and tracks visited cells in a bitset, so memory is one bit per cell
+ * plus the current path, and no StackOverflowError is possible.
+ *
+ * dfs() visits cells in exactly the same order as Algorithm2.dfsRecursive (neighbours tried up, right,
+ * down, left), so results are reproducible between the two.
+ * idaStar() is iterative-deepening A*: repeated depth-first passes with a growing f-cost limit, giving
+ * optimal paths while only ever storing the current path.
+ */
+public class IterativeDfs {
+
+	// Order dfsRecursive tries neighbours in (the reverse of Node.getNeighbours())
+	private static final int[] ORDER = { Grid.UP, Grid.RIGHT, Grid.DOWN, Grid.LEFT };
+	private static final int MAX_CELLS = 1 << 28;	// Cell index must fit in a frame next to 3 direction bits
+
+	private final Grid grid;
+	private final int width;
+	private final int height;
+
+	public IterativeDfs(Grid grid) {
+		if (grid.cells() > MAX_CELLS) {
+			throw new IllegalArgumentException("Maze too large for IterativeDfs: " + grid.cells() + " cells");
+		}
+		this.grid = grid;
+		this.width = grid.getWidth();
+		this.height = grid.getHeight();
+	}
+
+	// Start-end depth-first search
+	public SearchResult dfs() {
+		return dfs(grid.getStart(), grid.getTarget(), null);
+	}
+
+	/**
+	 * Depth-first search from source to goal. The path found is the DFS tree path, not necessarily the shortest.
+	 * If visits is not null every visited cell is appended to it in visit order.
+	 */
+	public SearchResult dfs(int source, int goal, IntList visits) {
+		return dfs(source, goal, visits, new ScratchArena());
+	}
+
+	// Same search with the visited bitset and stack taken from arena
+	public SearchResult dfs(int source, int goal, IntList visits, ScratchArena arena) {
+		if (source < 0 || goal < 0 || grid.isWall(source) || grid.isWall(goal)) {
+			return SearchResult.notFound(0);
+		}
+		long[] visited = arena.bits(grid.cells());
+		IntList stack = arena.list();
+
+		visited[source >>> 6] |= 1L << source;
+		if (visits != null) visits.add(source);
+		long expansions = 1;
+		if (source == goal) {
+			return new SearchResult(new int[] { source }, 0, expansions);
+		}
+		stack.push(source << 3);
+
+		while (!stack.isEmpty()) {
+			int frame = stack.peek();
+			int k = frame & 7;
+			if (k == ORDER.length) {
+				stack.pop(); // Every neighbour tried, backtrack
+				continue;
+			}
+			stack.set(stack.size() - 1, frame + 1);
+
+			int next = neighbour(frame >>> 3, ORDER[k]);
+			if (next < 0 || (visited[next >>> 6] & (1L << next)) != 0) continue;
+
+			visited[next >>> 6] |= 1L << next;
+			if (visits != null) visits.add(next);
+			expansions++;
+			if (next == goal) {
+				int[] path = framesToPath(stack, next);
+				return new SearchResult(path, pathCost(path), expansions);
+			}
+			stack.push(next << 3);
+		}
+		return SearchResult.notFound(expansions);
+	}
+
+	/**
+	 * Iterative-deepening A* from start to end.
+	 * Memory is the current path plus one on-path bit per cell. Without a closed list cells can be
+	 * re-expanded many times in open areas, so maxExpansions caps the total work (not found if exceeded).
+	 */
+	public SearchResult idaStar(Heuristic heuristic, long maxExpansions) {
+		int source = grid.getStart();
+		int goal = grid.getTarget();
+		if (source < 0 || goal < 0 || grid.isWall(source) || grid.isWall(goal)) {
+			return SearchResult.notFound(0);
+		}
+		if (source == goal) {
+			return new SearchResult(new int[] { source }, 0, 1);
+		}
+
+		long[] onPath = new long[(grid.cells() + 63) >>> 6];
+		IntList stack = new IntList();
+		IntList costs = new IntList();		// g-cost of each frame on the stack
+		long expansions = 0;
+		int threshold = heuristic.estimate(source, goal);
+
+		while (true) {
+			int nextThreshold = Integer.MAX_VALUE;
+			stack.push(source << 3);
+			costs.push(0);
+			onPath[source >>> 6] |= 1L << source;
+
+			while (!stack.isEmpty()) {
+				int frame = stack.peek();
+				int cell = frame >>> 3;
+				int k = frame & 7;
+				if (k == ORDER.length) {
+					stack.pop();
+					costs.pop();
+					onPath[cell >>> 6] &= ~(1L << cell);
+					continue;
+				}
+				stack.set(stack.size() - 1, frame + 1);
+
+				int next = neighbour(cell, ORDER[k]);
+				if (next < 0 || (onPath[next >>> 6] & (1L << next)) != 0) continue;
+
+				int g = costs.peek() + grid.cost(next);
+				int f = g + heuristic.estimate(next, goal);
+				if (f > threshold) {
+					nextThreshold = Math.min(nextThreshold, f); // Smallest cost beyond the limit
+					continue;
+				}
+				if (++expansions > maxExpansions) {
+					return SearchResult.notFound(expansions);
+				}
+				if (next == goal) {
+					return new SearchResult(framesToPath(stack, next), g, expansions);
+				}
+				stack.push(next << 3);
+				costs.push(g);
+				onPath[next >>> 6] |= 1L << next;
+			}
+
+			if (nextThreshold == Integer.MAX_VALUE) {
+				return SearchResult.notFound(expansions); // Nothing left beyond the limit: unreachable
+			}
+			threshold = nextThreshold;
+		}
+	}
+
+	// Neighbour in a direction, or -1 if it is outside the grid or a wall
+	private int neighbour(int cell, int direction) {
+		int x = cell % width;
+		int y = cell / width;
+		switch (direction) {
+		case Grid.LEFT:
+			if (x == 0) return -1;
+			break;
+		case Grid.DOWN:
+			if (y == height - 1) return -1;
+			break;
+		case Grid.RIGHT:
+			if (x == width - 1) return -1;
+			break;
+		default:
+			if (y == 0) return -1;
+			break;
+		}
+		int next = grid.move(cell, direction);
+		return grid.isWall(next) ? -1 : next;
+	}
+
+	// The cells of the stack frames (the current path) followed by the last cell
+	private static int[] framesToPath(IntList stack, int last) {
+		int[] path = new int[stack.size() + 1];
+		for (int i = 0; i < stack.size(); i++) {
+			path[i] = stack.get(i) >>> 3;
+		}
+		path[stack.size()] = last;
+		return path;
+	}
+
+	private long pathCost(int[] path) {
+		long cost = 0;
+		for (int i = 1; i < path.length; i++) {
+			cost += grid.cost(path[i]);
+		}
+		return cost;
+	}
+
+	/**
+	 * Runs the DFS on a large generated perfect maze.
+	 * Usage: IterativeDfs [side] (default 3163, about 10^7 cells)
+	 */
+	public static void main(String[] args) {
+		int side = args.length > 0 ? Integer.parseInt(args[0]) : 3163;
+		long t0 = System.nanoTime();
+		Grid grid = MazeGenerator.perfect(side, side, 1);
+		long t1 = System.nanoTime();
+		SearchResult result = new IterativeDfs(grid).dfs();
+		long t2 = System.nanoTime();
+		System.out.printf("%dx%d perfect maze generated in %.1f ms, DFS: %s in %.1f ms%n", side, side,
+				(t1 - t0) / 1e6, result, (t2 - t1) / 1e6);
+	}
+}
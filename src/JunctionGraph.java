@@ -0,0 +1,311 @@
+import java.util.Arrays;
+
+/**
+ * Corridor contraction of a Grid.
+ * Every run of 1-wide corridor cells is collapsed into a single weighted edge between two junctions
+ * (cells with a number of open neighbours other than 2, plus the start and end cells).
+ * Optionally, dead ends are filled first so that branches which cannot lie on a start-end path disappear.
+ * Dijkstra / A* then run on the (much smaller) junction graph and the result is expanded back to cells.
+ */
+public class JunctionGraph {
+
+	private final Grid grid;
+	private final boolean[] filled;		// Cells removed by dead-end filling (all false if not requested)
+	private final int[] junctionId;		// Junction id per cell, -1 for corridor / wall / filled cells
+	private final int[] junctionCell;	// Cell index per junction id
+
+	// Arcs stored in compressed rows: arcs of junction j are arcStart[j] .. arcStart[j + 1] - 1
+	private final int[] arcStart;
+	private final int[] arcTo;			// Junction id the arc leads to
+	private final int[] arcFirst;		// First cell stepped on when leaving the junction
+	private final int[] arcWeight;		// Summed cell costs along the corridor
+
+	private final int[] buffer = new int[4];
+
+	private JunctionGraph(Grid grid, boolean fillDeadEnds) {
+		this.grid = grid;
+		this.filled = new boolean[grid.cells()];
+		if (fillDeadEnds) {
+			fillDeadEnds();
+		}
+
+		// Find junctions
+		junctionId = new int[grid.cells()];
+		Arrays.fill(junctionId, -1);
+		IntList cells = new IntList();
+		for (int cell = 0; cell < grid.cells(); cell++) {
+			if (!isActive(cell)) continue;
+			if (degree(cell) != 2 || cell == grid.getStart() || cell == grid.getTarget()) {
+				junctionId[cell] = cells.size();
+				cells.add(cell);
+			}
+		}
+		junctionCell = cells.toArray();
+
+		// Walk every corridor leaving every junction. Each corridor is found once from each end,
+		// so both directions of the edge are produced without extra work.
+		int junctions = junctionCell.length;
+		arcStart = new int[junctions + 1];
+		IntList to = new IntList();
+		IntList first = new IntList();
+		IntList weight = new IntList();
+		int[] around = new int[4];
+		for (int j = 0; j < junctions; j++) {
+			arcStart[j] = to.size();
+			int from = junctionCell[j];
+			int count = activeNeighbours(from, around);
+			for (int n = 0; n < count; n++) {
+				int prev = from;
+				int cur = around[n];
+				int cost = grid.cost(cur);
+				while (junctionId[cur] < 0) {
+					int next = nextInCorridor(cur, prev);
+					prev = cur;
+					cur = next;
+					cost += grid.cost(cur);
+				}
+				if (cur == from) continue; // Corridor loops back to the same junction, never useful
+				to.add(junctionId[cur]);
+				first.add(around[n]);
+				weight.add(cost);
+			}
+		}
+		arcStart[junctions] = to.size();
+		arcTo = to.toArray();
+		arcFirst = first.toArray();
+		arcWeight = weight.toArray();
+	}
+
+	/**
+	 * Builds the junction graph of a grid.
+	 * If fillDeadEnds is true, dead-end branches (except those holding the start or end) are removed first.
+	 */
+	public static JunctionGraph build(Grid grid, boolean fillDeadEnds) {
+		return new JunctionGraph(grid, fillDeadEnds);
+	}
+
+	/**
+	 * Dead-end filling: repeatedly removes open cells with at most one open neighbour.
+	 * Start and end cells are never removed, so what is left is every cell that can lie on a start-end path
+	 * (in a perfect maze that is exactly the solution).
+	 */
+	private void fillDeadEnds() {
+		IntList stack = new IntList();
+		for (int cell = 0; cell < grid.cells(); cell++) {
+			if (grid.isOpen(cell) && !isProtected(cell) && degree(cell) <= 1) {
+				stack.push(cell);
+			}
+		}
+		int[] around = new int[4];
+		while (!stack.isEmpty()) {
+			int cell = stack.pop();
+			if (filled[cell]) continue;
+			filled[cell] = true;
+
+			int count = activeNeighbours(cell, around);
+			for (int n = 0; n < count; n++) {
+				int neighbour = around[n];
+				if (!isProtected(neighbour) && degree(neighbour) <= 1) {
+					stack.push(neighbour);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Finds the shortest start-end path on the junction graph.
+	 * With useHeuristic the search is A* using the Manhattan distance between junctions times the
+	 * cheapest cell cost (admissible, since a corridor is never shorter than the Manhattan distance it covers),
+	 * otherwise plain Dijkstra. Expansions count junctions, not cells.
+	 */
+	public SearchResult solve(boolean useHeuristic) {
+		int source = grid.getStart();
+		int goal = grid.getTarget();
+		if (source < 0 || goal < 0 || junctionId[source] < 0 || junctionId[goal] < 0) {
+			return SearchResult.notFound(0);
+		}
+
+		int junctions = junctionCell.length;
+		int[] dist = new int[junctions];
+		int[] prevArc = new int[junctions];
+		boolean[] closed = new boolean[junctions];
+		Arrays.fill(dist, Integer.MAX_VALUE);
+		Arrays.fill(prevArc, -1);
+
+		int sourceId = junctionId[source];
+		int goalId = junctionId[goal];
+		int minCost = useHeuristic ? grid.getMinCost() : 0;
+		dist[sourceId] = 0;
+
+		// Entries are packed as (priority << 32 | junction id) in a primitive heap, no object per entry
+		LongHeap open = new LongHeap();
+		open.push(pack(minCost * grid.manhattan(source, goal), sourceId));
+		long expansions = 0;
+
+		while (!open.isEmpty()) {
+			int j = (int) open.pop();
+			if (closed[j]) continue;
+			closed[j] = true;
+			expansions++;
+
+			if (j == goalId) {
+				return new SearchResult(expand(prevArc, sourceId, goalId), dist[goalId], expansions);
+			}
+
+			for (int a = arcStart[j]; a < arcStart[j + 1]; a++) {
+				int k = arcTo[a];
+				int candidate = dist[j] + arcWeight[a];
+				if (!closed[k] && candidate < dist[k]) {
+					dist[k] = candidate;
+					prevArc[k] = a;
+					int h = minCost * grid.manhattan(junctionCell[k], goal);
+					open.push(pack(candidate + h, k));
+				}
+			}
+		}
+		return SearchResult.notFound(expansions);
+	}
+
+	// Turns the chain of arcs ending at goalId back into the full list of cells
+	private int[] expand(int[] prevArc, int sourceId, int goalId) {
+		IntList arcs = new IntList();
+		for (int j = goalId; j != sourceId; j = sourceOf(prevArc[j])) {
+			arcs.add(prevArc[j]);
+		}
+		arcs.reverse();
+
+		IntList path = new IntList();
+		path.add(junctionCell[sourceId]);
+		for (int i = 0; i < arcs.size(); i++) {
+			int a = arcs.get(i);
+			int prev = path.get(path.size() - 1);
+			int cur = arcFirst[a];
+			path.add(cur);
+			while (junctionId[cur] < 0) {
+				int next = nextInCorridor(cur, prev);
+				prev = cur;
+				cur = next;
+				path.add(cur);
+			}
+		}
+		return path.toArray();
+	}
+
+	// Junction an arc starts from (binary search over the compressed rows)
+	private int sourceOf(int arc) {
+		int lo = 0;
+		int hi = junctionCell.length - 1;
+		while (lo < hi) {
+			int mid = (lo + hi + 1) >>> 1;
+			if (arcStart[mid] <= arc) {
+				lo = mid;
+			} else {
+				hi = mid - 1;
+			}
+		}
+		return lo;
+	}
+
+	// The corridor neighbour of cur that is not prev
+	private int nextInCorridor(int cur, int prev) {
+		int count = activeNeighbours(cur, buffer);
+		for (int n = 0; n < count; n++) {
+			if (buffer[n] != prev) {
+				return buffer[n];
+			}
+		}
+		throw new IllegalStateException("Corridor cell " + cur + " has no exit");
+	}
+
+	private static long pack(int priority, int id) {
+		return ((long) priority << 32) | id;
+	}
+
+	private boolean isProtected(int cell) {
+		return cell == grid.getStart() || cell == grid.getTarget();
+	}
+
+	// Open and not removed by dead-end filling
+	private boolean isActive(int cell) {
+		return grid.isOpen(cell) && !filled[cell];
+	}
+
+	private int activeNeighbours(int cell, int[] out) {
+		int count = grid.neighbours(cell, out);
+		int active = 0;
+		for (int n = 0; n < count; n++) {
+			if (!filled[out[n]]) {
+				out[active++] = out[n];
+			}
+		}
+		return active;
+	}
+
+	private int degree(int cell) {
+		return activeNeighbours(cell, buffer);
+	}
+
+	public boolean isFilled(int cell) {
+		return filled[cell];
+	}
+
+	public boolean isJunction(int cell) {
+		return junctionId[cell] >= 0;
+	}
+
+	public int junctionCount() {
+		return junctionCell.length;
+	}
+
+	// Number of directed arcs (each corridor counts twice)
+	public int arcCount() {
+		return arcTo.length;
+	}
+
+	// Open cells in the original grid per junction, i.e. how much smaller the search graph got
+	public double compressionRatio() {
+		return junctionCell.length == 0 ? 0 : (double) grid.openCells() / junctionCell.length;
+	}
+
+	/**
+	 * Binary min-heap of packed long entries in a plain long[].
+	 */
+	private static class LongHeap {
+		private long[] entries = new long[64];
+		private int size;
+
+		void push(long entry) {
+			if (size == entries.length) {
+				entries = Arrays.copyOf(entries, size * 2);
+			}
+			int i = size++;
+			while (i > 0) {
+				int parent = (i - 1) >>> 1;
+				if (entries[parent] <= entry) break;
+				entries[i] = entries[parent];
+				i = parent;
+			}
+			entries[i] = entry;
+		}
+
+		long pop() {
+			long top = entries[0];
+			long last = entries[--size];
+			int i = 0;
+			while (true) {
+				int child = 2 * i + 1;
+				if (child >= size) break;
+				if (child + 1 < size && entries[child + 1] < entries[child]) child++;
+				if (entries[child] >= last) break;
+				entries[i] = entries[child];
+				i = child;
+			}
+			entries[i] = last;
+			return top;
+		}
+
+		boolean isEmpty() {
+			return size == 0;
+		}
+	}
+}
@@ -0,0 +1,237 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * ALT (A*, Landmarks, Triangle inequality) preprocessing for repeated queries on one maze.
+ * Stores the BFS distance from k landmark cells to every cell. For any landmark L,
+ * |d(L, a) - d(L, goal)| is a lower bound on the moves from a to goal, and the largest of
+ * these bounds (times the cheapest cell cost) is a consistent A* heuristic that is far tighter
+ * than the straight-line distance inside a maze.
+ *
+ * The tables can be saved next to the maze file ('name.maze.alt') and are tied to the maze
+ * layout through Grid.contentHash(), so any edit invalidates them.
+ */
+public class Landmarks implements Heuristic {
+
+	private static final int MAGIC = 0x414c5431;	// "ALT1"
+	public static final int DEFAULT_COUNT = 8;
+	private static final int MAX_COUNT = 64;		// Most landmarks a saved table may hold
+	private static final int HEADER_BYTES = 25;		// Magic, hash, min cost, count, compact flag, cells
+
+	private final long mazeHash;		// Grid.contentHash() of the maze the tables belong to
+	private final int minCost;			// Cheapest cell cost, scales distances into costs
+	private final int[] landmarks;		// Landmark cells
+	private final short[][] shortDist;	// Distances per landmark when they all fit in a short (-1 = unreachable)
+	private final int[][] intDist;		// Otherwise int distances (-1 = unreachable)
+
+	private Landmarks(long mazeHash, int minCost, int[] landmarks, short[][] shortDist, int[][] intDist) {
+		this.mazeHash = mazeHash;
+		this.minCost = minCost;
+		this.landmarks = landmarks;
+		this.shortDist = shortDist;
+		this.intDist = intDist;
+	}
+
+	/**
+	 * Picks k landmarks with farthest-point selection and runs one BFS from each.
+	 * The first landmark is the cell farthest from the start (or the first open cell), every next one
+	 * is the cell farthest from all landmarks chosen so far, which spreads them over the maze edges.
+	 */
+	public static Landmarks compute(Grid grid, int k) {
+		int cells = grid.cells();
+		int seed = grid.getStart() >= 0 && grid.isOpen(grid.getStart()) ? grid.getStart() : -1;
+		for (int cell = 0; cell < cells && seed < 0; cell++) {
+			if (grid.isOpen(cell)) seed = cell;
+		}
+		if (seed < 0 || k <= 0) {
+			return new Landmarks(grid.contentHash(), grid.getMinCost(), new int[0], new short[0][], null);
+		}
+
+		int[] chosen = new int[k];
+		int[][] tables = new int[k][];
+		int[] nearest = grid.bfsDistances(seed); // Distance to the closest landmark so far
+		int max = 0;
+		for (int i = 0; i < k; i++) {
+			chosen[i] = farthest(nearest);
+			tables[i] = grid.bfsDistances(chosen[i]);
+			for (int cell = 0; cell < cells; cell++) {
+				int d = tables[i][cell];
+				max = Math.max(max, d);
+				if (i == 0 || (d >= 0 && d < nearest[cell])) {
+					nearest[cell] = d;
+				}
+			}
+		}
+
+		// Keep the tables as shorts when the maze is small enough (halves the memory)
+		if (max < Short.MAX_VALUE) {
+			short[][] compact = new short[k][cells];
+			for (int i = 0; i < k; i++) {
+				for (int cell = 0; cell < cells; cell++) {
+					compact[i][cell] = (short) tables[i][cell];
+				}
+				tables[i] = null;
+			}
+			return new Landmarks(grid.contentHash(), grid.getMinCost(), chosen, compact, null);
+		}
+		return new Landmarks(grid.contentHash(), grid.getMinCost(), chosen, null, tables);
+	}
+
+	// Cell with the largest known distance
+	private static int farthest(int[] dist) {
+		int best = 0;
+		for (int cell = 1; cell < dist.length; cell++) {
+			if (dist[cell] > dist[best]) best = cell;
+		}
+		return best;
+	}
+
+	/**
+	 * Returns the tables saved next to the maze file if they still match the maze,
+	 * otherwise computes them and (re)writes the file.
+	 */
+	public static Landmarks loadOrCompute(Grid grid, File mazeFile, int k) {
+		File file = tableFile(mazeFile);
+		long hash = grid.contentHash();
+		if (file.exists()) {
+			try {
+				Landmarks cached = read(file, grid);
+				if (cached.mazeHash == hash && cached.landmarks.length == k) {
+					return cached;
+				}
+			} catch (IOException e) {
+				System.out.println("Ignoring unreadable landmark file " + file + ": " + e.getMessage());
+			}
+		}
+
+		Landmarks computed = compute(grid, k);
+		try {
+			computed.write(file);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		return computed;
+	}
+
+	// True if tables for this maze layout are saved next to the maze file (only the header is read)
+	public static boolean isCached(Grid grid, File mazeFile) {
+		File file = tableFile(mazeFile);
+		if (!file.exists()) return false;
+		try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+			return in.readInt() == MAGIC && in.readLong() == grid.contentHash();
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	// Removes the saved tables of a maze file (called when the maze is overwritten)
+	public static void invalidate(File mazeFile) {
+		File file = tableFile(mazeFile);
+		if (file.exists() && !file.delete()) {
+			System.out.println("Could not delete stale landmark file " + file);
+		}
+	}
+
+	public static File tableFile(File mazeFile) {
+		return new File(mazeFile.getAbsolutePath() + ".alt");
+	}
+
+	/**
+	 * Triangle inequality lower bound: max over landmarks of |d(L, cell) - d(L, goal)|.
+	 */
+	@Override
+	public int estimate(int cell, int goal) {
+		int best = 0;
+		for (int i = 0; i < landmarks.length; i++) {
+			int a = distance(i, cell);
+			int b = distance(i, goal);
+			if (a >= 0 && b >= 0) {
+				best = Math.max(best, Math.abs(a - b));
+			}
+		}
+		return best * minCost;
+	}
+
+	// BFS distance from landmark i to a cell (-1 if unreachable)
+	public int distance(int i, int cell) {
+		return shortDist != null ? shortDist[i][cell] : intDist[i][cell];
+	}
+
+	// True if these tables were computed for the given maze layout
+	public boolean matches(Grid grid) {
+		return mazeHash == grid.contentHash();
+	}
+
+	public int[] getLandmarks() {
+		return landmarks;
+	}
+
+	public void write(File file) throws IOException {
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+			out.writeInt(MAGIC);
+			out.writeLong(mazeHash);
+			out.writeInt(minCost);
+			out.writeInt(landmarks.length);
+			out.writeBoolean(shortDist != null);
+			int cells = landmarks.length == 0 ? 0 : (shortDist != null ? shortDist[0].length : intDist[0].length);
+			out.writeInt(cells);
+			for (int i = 0; i < landmarks.length; i++) {
+				out.writeInt(landmarks[i]);
+				for (int cell = 0; cell < cells; cell++) {
+					if (shortDist != null) {
+						out.writeShort(shortDist[i][cell]);
+					} else {
+						out.writeInt(intDist[i][cell]);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reads tables saved for a maze of grid's size. The header is checked against the grid and the
+	 * file length before anything is allocated, so a corrupt file gives an IOException.
+	 */
+	public static Landmarks read(File file, Grid grid) throws IOException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			if (in.readInt() != MAGIC) {
+				throw new IOException("Not a landmark file");
+			}
+			long hash = in.readLong();
+			int minCost = in.readInt();
+			int k = in.readInt();
+			boolean compact = in.readBoolean();
+			int cells = in.readInt();
+			if (cells != (k == 0 ? 0 : grid.cells()) || k < 0 || k > MAX_COUNT || minCost < 1 || minCost > 9) {
+				throw new IOException("Bad landmark header: " + k + " landmarks, " + cells + " cells, min cost " + minCost);
+			}
+			long length = HEADER_BYTES + k * (4 + (long) cells * (compact ? 2 : 4));
+			if (file.length() != length) {
+				throw new IOException("Landmark file is " + file.length() + " bytes, expected " + length);
+			}
+			int[] landmarks = new int[k];
+			short[][] shortDist = compact ? new short[k][cells] : null;
+			int[][] intDist = compact ? null : new int[k][cells];
+			for (int i = 0; i < k; i++) {
+				landmarks[i] = in.readInt();
+				if (landmarks[i] < 0 || landmarks[i] >= cells) {
+					throw new IOException("Landmark cell outside the maze: " + landmarks[i]);
+				}
+				for (int cell = 0; cell < cells; cell++) {
+					if (compact) {
+						shortDist[i][cell] = in.readShort();
+					} else {
+						intDist[i][cell] = in.readInt();
+					}
+				}
+			}
+			return new Landmarks(hash, minCost, landmarks, shortDist, intDist);
+		}
+	}
+}
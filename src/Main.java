@@ -6,6 +6,9 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
+import java.awt.event.MouseMotionListener;
+import java.awt.event.MouseWheelEvent;
+import java.awt.event.MouseWheelListener;
 import java.awt.image.BufferStrategy;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
@@ -13,6 +16,8 @@ import java.io.File;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import javax.swing.JFileChooser;
 import javax.swing.JFrame;
 import javax.swing.JMenu;
@@ -24,8 +29,9 @@ import javax.swing.JOptionPane;
  * Main Class extending Canvas (for drawing) and 
  * 	implementing Runnable (for threading) and
  * MouseListener (for user input)
+ * Mouse wheel zooms and Ctrl + drag pans the view.
  */
-public class Main extends Canvas implements Runnable, MouseListener {
+public class Main extends Canvas implements Runnable, MouseListener, MouseMotionListener, MouseWheelListener {
 
 	private static Node start = null;	// Reference to the starting point of the 
 	private static Node target = null;	// Reference to the ending point of the maze
@@ -34,14 +40,28 @@ public class Main extends Canvas implements Runnable, MouseListener {
 	private Node[][] nodeList;			// 2D grid of nodes representing the maze
 	private static Main runTimeMain;	// Static reference to this instance for use in menu callbacks
 	private static Algorithm algorithm;	// Object to perform pathfinding algorithms
+	private File mazeFile;				// File the current maze was opened from / saved to (null if new)
+	private volatile FlowField heatmap;	// Distance field drawn over the board (null if hidden)
+	private volatile long boardChanges;	// Bumped when the board or the heatmap is replaced
+	private volatile GridView largeView;	// Maze too large for a Node board (null if the board is shown)
+	private final Viewport viewport;	// Pan / zoom state
+	private final BoardSource boardSource = new BoardSource();
+	private int dragX, dragY;			// Last mouse position while panning
 
 	// Dimensions for the application window
 	private final static int WIDTH = 1450;
 	private final static int HEIGHT = 800;
 	
-	// Dimensions for the maze grid (40x20 nodes)
-	private final static int NODES_WIDTH = 40;
-	private final static int NODES_HEIGHT = 20;
+	// Dimensions for the maze grid (40x20 nodes by default, opened mazes can be any size)
+	private int nodesWidth = 40;
+	private int nodesHeight = 20;
+
+	// Larger mazes are opened as a read-only GridView instead of a Node board
+	private final static int NODE_BOARD_LIMIT = Grid.LARGE_MAZE_CELLS;
+
+	public Main() {
+		viewport = new Viewport(WIDTH, HEIGHT);
+	}
 	
 	// Main entry point for the program
 	public static void main(String[] args) {
@@ -89,11 +109,22 @@ public class Main extends Canvas implements Runnable, MouseListener {
 		// Board menu
 		JMenuItem newGrid = new JMenuItem("New Board");
 		JMenuItem clearSearch = new JMenuItem("Clear Search Results");
+		JMenuItem fitView = new JMenuItem("Zoom to Fit");
+		JMenuItem resetView = new JMenuItem("Actual Size");
 
 		// Algorithm menu
 		JMenuItem bfsItem = new JMenuItem("Breadth-First Search");
 		JMenuItem dfsItem = new JMenuItem("Depth-First Search");
+		JMenuItem iterativeDfsItem = new JMenuItem("Depth-First Search (iterative)");
 		JMenuItem astarItem = new JMenuItem("A-star Search");
+		JMenuItem deadEndItem = new JMenuItem("Dead-end Filling");
+		JMenuItem junctionItem = new JMenuItem("Junction Graph Search");
+		JMenuItem dijkstraItem = new JMenuItem("Dijkstra (weighted terrain)");
+		JMenuItem weightedAstarItem = new JMenuItem("A-star (weighted terrain)");
+		JMenuItem altItem = new JMenuItem("A-star (landmarks / ALT)");
+		JMenuItem flowFieldItem = new JMenuItem("Flow Field (distance heatmap)");
+		JMenuItem anytimeItem = new JMenuItem("A-star (anytime, time budget)");
+		JMenuItem autoItem = new JMenuItem("Auto (fastest for this maze)");
 		JMenuItem searchTime = new JMenuItem("Exploring time per Node");
 
 		// Link menu items to their functions using lambda expressions
@@ -130,7 +161,10 @@ public class Main extends Canvas implements Runnable, MouseListener {
 		// Reset board
 		newGrid.addActionListener(new ActionListener() {
 			public void actionPerformed(ActionEvent arg0) {
+				runTimeMain.largeView = null;
 				runTimeMain.createNodes(true);
+				runTimeMain.mazeFile = null;
+				runTimeMain.viewport.fit(runTimeMain.nodesWidth, runTimeMain.nodesHeight);
 			}
 		});
 		
@@ -141,13 +175,28 @@ public class Main extends Canvas implements Runnable, MouseListener {
 			}
 		});
 
+		// Viewport
+		fitView.addActionListener(new ActionListener() {
+			public void actionPerformed(ActionEvent arg0) {
+				Viewport.Source source = runTimeMain.source();
+				runTimeMain.viewport.fit(source.getColumns(), source.getRows());
+			}
+		});
+
+		resetView.addActionListener(new ActionListener() {
+			public void actionPerformed(ActionEvent arg0) {
+				runTimeMain.viewport.reset();
+			}
+		});
+
 		// Run pathfinding algorithms only if start and end points are valid
 		// BFS algorithm
 		bfsItem.addActionListener(new ActionListener() {
 			public void actionPerformed(ActionEvent arg0) {
+				if (solveLarge(GridView.BFS)) return;
 				if (runTimeMain.isMazeValid()) {
-					algorithm.bfs(runTimeMain.start, runTimeMain.target, runTimeMain.NODES_WIDTH,
-							runTimeMain.NODES_HEIGHT);
+					algorithm.bfs(runTimeMain.start, runTimeMain.target, runTimeMain.nodesWidth,
+							runTimeMain.nodesHeight);
 				} else {
 					System.out.println("DIDNT LAUNCH");
 				}
@@ -157,9 +206,22 @@ public class Main extends Canvas implements Runnable, MouseListener {
 		// DFS algorithm
 		dfsItem.addActionListener(new ActionListener() {
 			public void actionPerformed(ActionEvent arg0) {
+				if (solveLarge(GridView.DFS)) return;
+				if (runTimeMain.isMazeValid()) {
+					algorithm.dfs(runTimeMain.start, runTimeMain.target, runTimeMain.nodesWidth,
+							runTimeMain.nodesHeight);
+				} else {
+					System.out.println("DIDNT LAUNCH");
+				}
+			}
+		});
+		
+		// Stack-safe DFS (same visit order as the recursive one)
+		iterativeDfsItem.addActionListener(new ActionListener() {
+			public void actionPerformed(ActionEvent arg0) {
+				if (solveLarge(GridView.DFS)) return;
 				if (runTimeMain.isMazeValid()) {
-					algorithm.dfs(runTimeMain.start, runTimeMain.target, runTimeMain.NODES_WIDTH,
-							runTimeMain.NODES_HEIGHT);
+					algorithm.iterativeDfs(runTimeMain.nodeList);
 				} else {
 					System.out.println("DIDNT LAUNCH");
 				}
@@ -169,9 +231,110 @@ public class Main extends Canvas implements Runnable, MouseListener {
 		// Astar algorithm 
 		astarItem.addActionListener(new ActionListener() {
 			public void actionPerformed(ActionEvent arg0) {
+				if (solveLarge(GridView.ASTAR)) return;
+				if (runTimeMain.isMazeValid()) {
+					algorithm.Astar(runTimeMain.start, runTimeMain.target, runTimeMain.nodesWidth,
+							runTimeMain.nodesHeight);
+				} else {
+					System.out.println("DIDNT LAUNCH");
+				}
+			}
+		});
+		
+		// Dead-end filling (no start/end required, they are just kept if present)
+		deadEndItem.addActionListener(new ActionListener() {
+			public void actionPerformed(ActionEvent arg0) {
+				if (solveLarge(GridView.DEAD_END)) return;
+				algorithm.deadEndFill(runTimeMain.nodeList);
+			}
+		});
+
+		// Corridor contraction + Dijkstra on the junction graph
+		junctionItem.addActionListener(new ActionListener() {
+			public void actionPerformed(ActionEvent arg0) {
+				if (solveLarge(GridView.JUNCTION)) return;
+				if (runTimeMain.isMazeValid()) {
+					algorithm.junctionSearch(runTimeMain.nodeList);
+				} else {
+					System.out.println("DIDNT LAUNCH");
+				}
+			}
+		});
+		
+		// Weighted terrain searches
+		dijkstraItem.addActionListener(new ActionListener() {
+			public void actionPerformed(ActionEvent arg0) {
+				if (solveLarge(GridView.DIJKSTRA)) return;
+				if (runTimeMain.isMazeValid()) {
+					algorithm.weightedSearch(runTimeMain.nodeList, false);
+				} else {
+					System.out.println("DIDNT LAUNCH");
+				}
+			}
+		});
+
+		weightedAstarItem.addActionListener(new ActionListener() {
+			public void actionPerformed(ActionEvent arg0) {
+				if (solveLarge(GridView.ASTAR)) return;
+				if (runTimeMain.isMazeValid()) {
+					algorithm.weightedSearch(runTimeMain.nodeList, true);
+				} else {
+					System.out.println("DIDNT LAUNCH");
+				}
+			}
+		});
+		
+		// A* with landmark heuristic, tables cached next to the maze file
+		altItem.addActionListener(new ActionListener() {
+			public void actionPerformed(ActionEvent arg0) {
+				if (solveLarge(GridView.ALT)) return;
 				if (runTimeMain.isMazeValid()) {
-					algorithm.Astar(runTimeMain.start, runTimeMain.target, runTimeMain.NODES_WIDTH,
-							runTimeMain.NODES_HEIGHT);
+					algorithm.altSearch(runTimeMain.nodeList, runTimeMain.mazeFile);
+				} else {
+					System.out.println("DIDNT LAUNCH");
+				}
+			}
+		});
+		
+		// One search from the end node, drawn as a heatmap
+		flowFieldItem.addActionListener(new ActionListener() {
+			public void actionPerformed(ActionEvent arg0) {
+				if (solveLarge(GridView.FLOW_FIELD)) return;
+				if (runTimeMain.isMazeValid()) {
+					runTimeMain.showHeatmap(algorithm.flowField(runTimeMain.nodeList));
+				} else {
+					System.out.println("DIDNT LAUNCH");
+				}
+			}
+		});
+		
+		// Best path found within a time budget
+		anytimeItem.addActionListener(new ActionListener() {
+			public void actionPerformed(ActionEvent arg0) {
+				String input = JOptionPane.showInputDialog(null, "Enter the time budget in miliseconds", "Time Budget",
+						JOptionPane.QUESTION_MESSAGE);
+				if (input == null) return;
+				long budget = Long.parseLong(input.trim());
+				if (runTimeMain.largeView != null) {
+					runTimeMain.largeView.solveAnytime(budget);
+				} else if (runTimeMain.isMazeValid()) {
+					algorithm.anytimeSearch(runTimeMain.nodeList, budget);
+				} else {
+					System.out.println("DIDNT LAUNCH");
+				}
+			}
+		});
+		
+		// Profile the maze and run the algorithm expected to be fastest
+		autoItem.addActionListener(new ActionListener() {
+			public void actionPerformed(ActionEvent arg0) {
+				if (runTimeMain.largeView != null) {
+					runTimeMain.largeView.solveAuto();
+				} else if (runTimeMain.isMazeValid()) {
+					FlowField field = algorithm.autoSearch(runTimeMain.nodeList, runTimeMain.mazeFile);
+					if (field != null) {
+						runTimeMain.showHeatmap(field);
+					}
 				} else {
 					System.out.println("DIDNT LAUNCH");
 				}
@@ -192,12 +355,33 @@ public class Main extends Canvas implements Runnable, MouseListener {
 		fileMenu.add(openMaze);
 		boardMenu.add(newGrid);
 		boardMenu.add(clearSearch);
+		boardMenu.add(fitView);
+		boardMenu.add(resetView);
+		algorithmsMenu.add(autoItem);
 		algorithmsMenu.add(dfsItem);
+		algorithmsMenu.add(iterativeDfsItem);
 		algorithmsMenu.add(bfsItem);
 		algorithmsMenu.add(astarItem);
+		algorithmsMenu.add(deadEndItem);
+		algorithmsMenu.add(junctionItem);
+		algorithmsMenu.add(dijkstraItem);
+		algorithmsMenu.add(weightedAstarItem);
+		algorithmsMenu.add(altItem);
+		algorithmsMenu.add(flowFieldItem);
+		algorithmsMenu.add(anytimeItem);
 		algorithmsMenu.add(searchTime);
 	}
 
+	// Large mazes have no Node board: run the headless version of the algorithm and show it as an overlay
+	private static boolean solveLarge(String algorithm) {
+		GridView view = runTimeMain.largeView;
+		if (view == null) {
+			return false;
+		}
+		view.solve(algorithm);
+		return true;
+	}
+
 	// Thread loop that handles rendering
 	public void run() {
 		init(); // Setup grid
@@ -223,7 +407,19 @@ public class Main extends Canvas implements Runnable, MouseListener {
 	public void init() {
 		requestFocus(); // Request keyboard mouse focus
 		addMouseListener(this); // Register mouse input
-		nodeList = new Node[NODES_WIDTH][NODES_HEIGHT];
+		addMouseMotionListener(this);
+		addMouseWheelListener(this);
+		resizeBoard(nodesWidth, nodesHeight);
+	}
+
+	// Replaces the board with an empty one of the given size (locked against render)
+	private synchronized void resizeBoard(int width, int height) {
+		nodesWidth = width;
+		nodesHeight = height;
+		start = null;
+		target = null;
+		nodeList = new Node[nodesWidth][nodesHeight];
+		showHeatmap(null);
 		createNodes(false); // Initialize node positions
 		setMazeDirections(); // Define neighbors for each node
 	}
@@ -239,9 +435,9 @@ public class Main extends Canvas implements Runnable, MouseListener {
 				int r = i + 1;
 				
 				if(u >= 0) up = nodeList[i][u];
-				if(d < NODES_HEIGHT) down =  nodeList[i][d];
+				if(d < nodesHeight) down =  nodeList[i][d];
 				if(l >= 0) left = nodeList[l][j];
-				if(r < NODES_WIDTH) right =  nodeList[r][j];
+				if(r < nodesWidth) right =  nodeList[r][j];
 				
 				nodeList[i][j].setDirections(left, right, up, down);
 			}	
@@ -254,6 +450,7 @@ public class Main extends Canvas implements Runnable, MouseListener {
 			for (int j = 0; j < nodeList[i].length; j++) {
 				if(!ref) nodeList[i][j] = new Node(i, j).setX(15 + i * 35).setY(15 + j * 35);
 				nodeList[i][j].clearNode(); // Remove wall or path state
+				nodeList[i][j].setWeight(1); // Remove terrain cost
 			}
 		}
 	}
@@ -263,19 +460,27 @@ public class Main extends Canvas implements Runnable, MouseListener {
 		JFileChooser fileChooser = new JFileChooser();
 		int option = fileChooser.showSaveDialog(frame);
 		if (option == JFileChooser.APPROVE_OPTION) {
+			if (largeView != null) {
+				System.out.println("Large mazes can't be edited or saved from the GUI");
+				return;
+			}
 			File file = fileChooser.getSelectedFile();
 			String ext = file.getAbsolutePath().endsWith(".maze") ? "" : ".maze";
-			BufferedWriter outputWriter = new BufferedWriter(new FileWriter(file.getAbsolutePath() + ext));
+			mazeFile = new File(file.getAbsolutePath() + ext);
+			Landmarks.invalidate(mazeFile); // Saved landmark tables may belong to the old layout
+			BufferedWriter outputWriter = new BufferedWriter(new FileWriter(mazeFile));
 			for (int i = 0; i < nodeList.length; i++) {
 				for (int j = 0; j < nodeList[i].length; j++) {
 					
-					// O = normal, 1 = wall, 2 = start, 3 = end
+					// O = normal, 1 = wall, 2 = start, 3 = end, 4-9 = terrain cost
 					if (nodeList[i][j].isWall()) {
 						outputWriter.write("1");
 					} else if (nodeList[i][j].isStart()) {
 						outputWriter.write("2");
 					} else if (nodeList[i][j].isEnd()) {
 						outputWriter.write("3");
+					} else if (nodeList[i][j].getWeight() > 1) {
+						outputWriter.write(Integer.toString(nodeList[i][j].getWeight()));
 					} else {
 						outputWriter.write("0");
 					}
@@ -293,15 +498,40 @@ public class Main extends Canvas implements Runnable, MouseListener {
 		int option = fileChooser.showOpenDialog(frame);
 		if (option == JFileChooser.APPROVE_OPTION) {
 			File file = fileChooser.getSelectedFile();
+			mazeFile = file;
 			BufferedReader reader = new BufferedReader(new FileReader(file.getAbsolutePath()));
+			List<String> lines = new ArrayList<>();
 			String line = null;
-			for (int i = 0; i < NODES_WIDTH; i++) {
-				line = reader.readLine();
-				for (int j = 0; j < NODES_HEIGHT; j++) {
+			while ((line = reader.readLine()) != null) {
+				if (!line.isEmpty()) lines.add(line);
+			}
+			reader.close();
+			if (lines.isEmpty()) {
+				System.out.println("Empty maze file");
+				return;
+			}
+
+			// Each line is a column; mazes too big for Node objects get a read-only view
+			int columns = lines.size();
+			int rows = lines.get(0).length();
+			if ((long) columns * rows > NODE_BOARD_LIMIT) {
+				largeView = new GridView(Grid.parse(lines), file); // The lines are already read, no second pass
+				viewport.fit(columns, rows);
+				return;
+			}
+			largeView = null;
+			if (columns != nodesWidth || rows != nodesHeight) {
+				resizeBoard(columns, rows);
+			}
+			viewport.fit(columns, rows);
+
+			for (int i = 0; i < nodesWidth; i++) {
+				line = lines.get(i);
+				for (int j = 0; j < nodesHeight && j < line.length(); j++) {
 					
 					//nodeList[i][j].setColor(Color.BLACK);
 					int nodeType = Character.getNumericValue(line.charAt(j));
-					System.out.println("node is " + nodeType);
+					nodeList[i][j].setWeight(1);
 					switch (nodeType) {
 					case 0:
 						nodeList[i][j].setColor(Color.LIGHT_GRAY);
@@ -318,37 +548,81 @@ public class Main extends Canvas implements Runnable, MouseListener {
 						nodeList[i][j].setColor(Color.RED);
 						target = nodeList[i][j];
 						break;
+					case 4: case 5: case 6: case 7: case 8: case 9:
+						nodeList[i][j].setColor(Color.LIGHT_GRAY);
+						nodeList[i][j].setWeight(nodeType); // Terrain cost
+						break;
 					}
 				}
 			}
-			reader.close();
 			// System.out.println(stringMaze);
 		}
 	}
 
 	// Clear only the search paths, keeping walls, start, and endpoints
 	public void clearSearchResults() {
-		for (int i = 0; i < nodeList.length; i++) {
-			for (int j = 0; j < nodeList[i].length; j++) {
-				if (nodeList[i][j].isSearched()) {
-					nodeList[i][j].clearNode();
-				}
+		showHeatmap(null);
+		if (largeView != null) {
+			largeView.clearSearch();
+			return;
+		}
+		Node.clearSearches(); // Search colors are epoch stamped, so this doesn't visit the nodes
+	}
+
+	// Draws the visible part of the maze grid and background
+	public synchronized void render(Graphics2D g) {
+		viewport.render(g, source());
+	}
+
+	// What is currently shown: the large maze view or the Node board
+	private Viewport.Source source() {
+		GridView view = largeView;
+		return view != null ? view : boardSource;
+	}
+
+	// Shows a distance field over the board (null hides it)
+	private void showHeatmap(FlowField field) {
+		heatmap = field;
+		boardChanges++;
+	}
+
+	/**
+	 * The Node board as seen by the viewport, with the heatmap overlay (distance to the end node).
+	 * The version counts node color changes (edits and searches) plus board and heatmap replacements,
+	 * so zoomed out tiles are only rebuilt when something actually changed.
+	 */
+	private class BoardSource implements Viewport.Source {
+		public int getColumns() {
+			return nodeList.length;
+		}
+
+		public int getRows() {
+			return nodeList[0].length;
+		}
+
+		public int rgb(int x, int y) {
+			return Viewport.blend(nodeList[x][y].getColor().getRGB(), heatAt(x, y));
+		}
+
+		public void renderCell(Graphics2D g, int x, int y) {
+			nodeList[x][y].render(g);
+			Color heat = heatAt(x, y);
+			if (heat != null) {
+				g.setColor(heat);
+				g.fillRect(15 + x * 35 + 1, 15 + y * 35 + 1, 34, 34);
 			}
 		}
-		if (isMazeValid()) {
-			target.setColor(Color.RED);
-			start.setColor(Color.GREEN);
+
+		public long version() {
+			return Node.changes() + boardChanges;
 		}
-	}
 
-	// Draws the maze grid and background
-	public void render(Graphics2D g) {
-		g.setColor(Color.WHITE);
-		g.fillRect(0, 0, WIDTH, HEIGHT);
-		for (int i = 0; i < nodeList.length; i++) {
-			for (int j = 0; j < nodeList[i].length; j++) {
-				nodeList[i][j].render(g);
+		private Color heatAt(int x, int y) {
+			FlowField field = heatmap;
+			if (field == null || field.getGrid().getWidth() != nodeList.length) {
+				return null;
 			}
+			return field.heatColor(field.getGrid().index(x, y));
 		}
 	}
 
@@ -359,10 +633,28 @@ public class Main extends Canvas implements Runnable, MouseListener {
 
 	// Handle mouse input: toggle wall, set start or end point
 	public void mousePressed(MouseEvent e) {
+		// Ctrl + drag pans the view
+		if (e.isControlDown()) {
+			dragX = e.getX();
+			dragY = e.getY();
+			return;
+		}
+		if (largeView != null) {
+			return; // Read-only
+		}
+
 		Node clickedNode = getNodeAt(e.getX(), e.getY());
 		if (clickedNode == null)
 			return;
 
+		// Shift + left click cycles the terrain cost of an open node
+		if (e.isShiftDown() && e.getButton() == MouseEvent.BUTTON1) {
+			if (!clickedNode.isWall()) {
+				clickedNode.cycleWeight();
+			}
+			return;
+		}
+
 		// Clear/delete wall if clicked
 		if (clickedNode.isWall()) {
 			clickedNode.clearNode();
@@ -403,12 +695,10 @@ public class Main extends Canvas implements Runnable, MouseListener {
 		return null;
 	}
 
-	// Given screen coordinates, find the corresponding node
+	// Given screen coordinates, find the corresponding node (through the zoom / pan of the viewport)
 	public Node getNodeAt(int x, int y) {
-		x -= 15;
-		x /= 35;
-		y -= 15;
-		y /= 35;
+		x = Math.floorDiv(viewport.toWorldX(x) - 15, 35);
+		y = Math.floorDiv(viewport.toWorldY(y) - 15, 35);
 
 		System.out.println(x + ":" + y);
 		if (x >= 0 && y >= 0 && x < nodeList.length && y < nodeList[x].length) {
@@ -433,4 +723,23 @@ public class Main extends Canvas implements Runnable, MouseListener {
 	@Override
 	public void mouseReleased(MouseEvent arg0) {
 	}
+
+	// Pan / zoom input
+	@Override
+	public void mouseDragged(MouseEvent e) {
+		if (e.isControlDown()) {
+			viewport.pan(e.getX() - dragX, e.getY() - dragY);
+			dragX = e.getX();
+			dragY = e.getY();
+		}
+	}
+
+	@Override
+	public void mouseMoved(MouseEvent e) {
+	}
+
+	@Override
+	public void mouseWheelMoved(MouseWheelEvent e) {
+		viewport.zoom(Math.pow(1.25, -e.getPreciseWheelRotation()), e.getX(), e.getY());
+	}
 }
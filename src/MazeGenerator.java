@@ -0,0 +1,103 @@
+import java.util.Random;
+
+/**
+ * Seeded maze generators for benchmarks and large headless runs.
+ * The same seed always gives the same maze.
+ */
+public class MazeGenerator {
+
+	/**
+	 * Random walls with the given density; start in the top-left corner and end in the bottom-right one
+	 * (both forced open). Low densities give open mazes, densities around 0.4 give many dead ends.
+	 */
+	public static Grid random(int width, int height, double density, long seed) {
+		Random random = new Random(seed);
+		Grid grid = new Grid(width, height);
+		for (int cell = 0; cell < grid.cells(); cell++) {
+			if (random.nextDouble() < density) {
+				grid.setWall(cell, true);
+			}
+		}
+		placeCorners(grid);
+		return grid;
+	}
+
+	/**
+	 * Perfect maze (exactly one path between any two open cells) carved with an iterative
+	 * recursive-backtracker on the odd coordinates. Walls fill the even rows and columns.
+	 * Start is (1, 1), end is the bottom-right-most carved cell. Width and height should be odd and >= 3.
+	 */
+	public static Grid perfect(int width, int height, long seed) {
+		if (width < 3 || height < 3) {
+			throw new IllegalArgumentException("Perfect maze needs at least 3x3 cells: " + width + "x" + height);
+		}
+		Random random = new Random(seed);
+		Grid grid = new Grid(width, height);
+		for (int cell = 0; cell < grid.cells(); cell++) {
+			grid.setWall(cell, true);
+		}
+
+		int[] dx = { -2, 0, 2, 0 };
+		int[] dy = { 0, 2, 0, -2 };
+		int[] options = new int[4];
+		IntList stack = new IntList();
+		int first = grid.index(1, 1);
+		grid.setWall(first, false);
+		stack.push(first);
+		while (!stack.isEmpty()) {
+			int cell = stack.peek();
+			int x = grid.x(cell);
+			int y = grid.y(cell);
+			int count = 0;
+			for (int d = 0; d < 4; d++) {
+				int nx = x + dx[d];
+				int ny = y + dy[d];
+				if (nx > 0 && ny > 0 && nx < width - 1 && ny < height - 1 && grid.isWall(grid.index(nx, ny))) {
+					options[count++] = d;
+				}
+			}
+			if (count == 0) {
+				stack.pop(); // Dead end, backtrack
+				continue;
+			}
+			int d = options[random.nextInt(count)];
+			grid.setWall(grid.index(x + dx[d] / 2, y + dy[d] / 2), false); // Knock down the wall in between
+			int next = grid.index(x + dx[d], y + dy[d]);
+			grid.setWall(next, false);
+			stack.push(next);
+		}
+
+		grid.setStart(first);
+		grid.setTarget(grid.index((width - 3) | 1, (height - 3) | 1));
+		return grid;
+	}
+
+	/**
+	 * Perfect maze with extra openings: every wall between two carved cells is knocked down with
+	 * probability loops, which adds cycles (0 = perfect maze, around 0.1 gives many alternative routes).
+	 * Start and end are the same as perfect's.
+	 */
+	public static Grid braid(int width, int height, double loops, long seed) {
+		Grid grid = perfect(width, height, seed);
+		Random random = new Random(~seed);
+		for (int y = 1; y < height - 1; y++) {
+			for (int x = 1 + (y & 1); x < width - 1; x += 2) { // Cells between two carved cells
+				int cell = grid.index(x, y);
+				if (grid.isWall(cell) && random.nextDouble() < loops) {
+					grid.setWall(cell, false);
+				}
+			}
+		}
+		return grid;
+	}
+
+	// Opens the corners and uses them as start and end
+	private static void placeCorners(Grid grid) {
+		int start = 0;
+		int target = grid.cells() - 1;
+		grid.setWall(start, false);
+		grid.setWall(target, false);
+		grid.setStart(start);
+		grid.setTarget(target);
+	}
+}
@@ -0,0 +1,366 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+
+/**
+ * Maze repository: a directory of '.maze' files plus a compact binary index ("maze.index") with
+ * per-maze metadata, so questions like "which mazes are unsolvable" never open the maze files.
+ *
+ * update() only re-reads files whose size or modification time changed, drops removed ones and rewrites
+ * the index when something changed. Mazes with the same layout, start and end share one analysis, and
+ * add() refuses to store a second copy of a maze already in the library.
+ */
+public class MazeLibrary {
+
+	public static final String INDEX_NAME = "maze.index";
+	private static final int MAGIC = 0x4d495831; // "MIX1"
+
+	private final File directory;
+	private final Map<String, Entry> entries = new TreeMap<>(); // By file name
+
+	/**
+	 * Metadata of one maze file.
+	 */
+	public static class Entry {
+		private final String name;
+		private final long size;			// File size and modification time, to detect changes
+		private final long modified;
+		private final int width;
+		private final int height;
+		private final long hash;			// Grid.contentHash (layout and terrain)
+		private final int start;			// Start / end cells (-1 if missing)
+		private final int target;
+		private final float wallDensity;	// Fraction of cells that are walls
+		private final int pathLength;		// Moves on the shortest start-end path (-1 = unsolvable)
+		private final int components;		// Connected groups of open cells
+
+		Entry(String name, long size, long modified, int width, int height, long hash, int start, int target,
+				float wallDensity, int pathLength, int components) {
+			this.name = name;
+			this.size = size;
+			this.modified = modified;
+			this.width = width;
+			this.height = height;
+			this.hash = hash;
+			this.start = start;
+			this.target = target;
+			this.wallDensity = wallDensity;
+			this.pathLength = pathLength;
+			this.components = components;
+		}
+
+		// Same analysis, different file
+		Entry rename(String name, long size, long modified) {
+			return new Entry(name, size, modified, width, height, hash, start, target, wallDensity, pathLength,
+					components);
+		}
+
+		// Same maze contents (layout, start and end)
+		public boolean sameMaze(Entry other) {
+			return hash == other.hash && start == other.start && target == other.target && width == other.width
+					&& height == other.height;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public int getWidth() {
+			return width;
+		}
+
+		public int getHeight() {
+			return height;
+		}
+
+		public long getCells() {
+			return (long) width * height;
+		}
+
+		public long getHash() {
+			return hash;
+		}
+
+		public float getWallDensity() {
+			return wallDensity;
+		}
+
+		public boolean isSolvable() {
+			return pathLength >= 0;
+		}
+
+		public int getPathLength() {
+			return pathLength;
+		}
+
+		public int getComponents() {
+			return components;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%s: %dx%d, walls %.1f%%, %s, %d component%s, hash %016x", name, width, height,
+					wallDensity * 100, isSolvable() ? "path " + pathLength : "unsolvable", components,
+					components == 1 ? "" : "s", hash);
+		}
+	}
+
+	/**
+	 * Opens the library in directory (created if needed) and reads its index, if any.
+	 * Call update() to bring the index in line with the files.
+	 */
+	public MazeLibrary(File directory) throws IOException {
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new IOException("Can't create " + directory);
+		}
+		this.directory = directory;
+		File index = new File(directory, INDEX_NAME);
+		if (index.exists()) {
+			try {
+				readIndex(index);
+			} catch (IOException e) {
+				System.out.println("Rebuilding unreadable index " + index + ": " + e.getMessage());
+				entries.clear();
+			}
+		}
+	}
+
+	/**
+	 * Re-analyzes new and changed maze files, forgets removed ones and saves the index.
+	 * Returns the number of files that had to be read.
+	 */
+	public int update() throws IOException {
+		File[] files = directory.listFiles((dir, name) -> name.endsWith(".maze"));
+		if (files == null) {
+			throw new IOException("Can't list " + directory);
+		}
+		Arrays.sort(files);
+
+		boolean changed = false;
+		int read = 0;
+		List<String> present = new ArrayList<>();
+		for (File file : files) {
+			present.add(file.getName());
+			Entry entry = entries.get(file.getName());
+			if (entry != null && entry.size == file.length() && entry.modified == file.lastModified()) {
+				continue; // Unchanged
+			}
+			entries.put(file.getName(), analyze(file));
+			changed = true;
+			read++;
+		}
+		changed |= entries.keySet().retainAll(present);
+
+		if (changed) {
+			writeIndex();
+		}
+		return read;
+	}
+
+	/**
+	 * Copies a maze file into the library unless an identical maze is already there.
+	 * Returns the entry of the stored maze (the existing one for duplicates).
+	 */
+	public Entry add(File mazeFile) throws IOException {
+		Entry candidate = analyze(mazeFile);
+		for (Entry entry : entries.values()) {
+			if (entry.sameMaze(candidate)) {
+				return entry;
+			}
+		}
+		String name = mazeFile.getName().endsWith(".maze") ? mazeFile.getName() : mazeFile.getName() + ".maze";
+		for (int i = 2; new File(directory, name).exists(); i++) {
+			name = mazeFile.getName().replaceFirst("(\\.maze)?$", "") + " (" + i + ").maze";
+		}
+		File copy = new File(directory, name);
+		Files.copy(mazeFile.toPath(), copy.toPath(), StandardCopyOption.COPY_ATTRIBUTES);
+		Entry entry = candidate.rename(name, copy.length(), copy.lastModified());
+		entries.put(name, entry);
+		writeIndex();
+		return entry;
+	}
+
+	// Reads and analyzes a maze file, reusing the analysis of an indexed maze with the same contents
+	private Entry analyze(File file) throws IOException {
+		Grid grid = Grid.load(file);
+		long hash = grid.contentHash();
+		for (Entry entry : entries.values()) {
+			if (entry.hash == hash && entry.start == grid.getStart() && entry.target == grid.getTarget()
+					&& entry.width == grid.getWidth() && entry.height == grid.getHeight()) {
+				return entry.rename(file.getName(), file.length(), file.lastModified());
+			}
+		}
+
+		int pathLength = -1;
+		if (grid.getStart() >= 0 && grid.getTarget() >= 0 && grid.isOpen(grid.getStart())) {
+			pathLength = grid.bfsDistances(grid.getStart())[grid.getTarget()];
+		}
+		float density = 1 - (float) grid.openCells() / grid.cells();
+		return new Entry(file.getName(), file.length(), file.lastModified(), grid.getWidth(), grid.getHeight(), hash,
+				grid.getStart(), grid.getTarget(), density, pathLength, countComponents(grid));
+	}
+
+	// Number of connected groups of open cells (flood fill with an explicit stack)
+	static int countComponents(Grid grid) {
+		long[] seen = new long[(grid.cells() + 63) >>> 6];
+		IntList stack = new IntList();
+		int[] around = new int[4];
+		int components = 0;
+		for (int cell = 0; cell < grid.cells(); cell++) {
+			if (grid.isWall(cell) || (seen[cell >>> 6] & (1L << cell)) != 0) continue;
+			components++;
+			seen[cell >>> 6] |= 1L << cell;
+			stack.push(cell);
+			while (!stack.isEmpty()) {
+				int current = stack.pop();
+				int count = grid.neighbours(current, around);
+				for (int n = 0; n < count; n++) {
+					int next = around[n];
+					if ((seen[next >>> 6] & (1L << next)) == 0) {
+						seen[next >>> 6] |= 1L << next;
+						stack.push(next);
+					}
+				}
+			}
+		}
+		return components;
+	}
+
+	// Every indexed maze matching the filter, by file name
+	public List<Entry> query(Predicate<Entry> filter) {
+		List<Entry> matches = new ArrayList<>();
+		for (Entry entry : entries.values()) {
+			if (filter.test(entry)) {
+				matches.add(entry);
+			}
+		}
+		return matches;
+	}
+
+	public Collection<Entry> entries() {
+		return entries.values();
+	}
+
+	public Entry get(String name) {
+		return entries.get(name);
+	}
+
+	// Groups of files holding the same maze (only groups of two or more)
+	public List<List<Entry>> duplicates() {
+		Map<String, List<Entry>> groups = new LinkedHashMap<>();
+		for (Entry entry : entries.values()) {
+			String key = entry.hash + ":" + entry.start + ":" + entry.target + ":" + entry.width + "x" + entry.height;
+			groups.computeIfAbsent(key, k -> new ArrayList<>()).add(entry);
+		}
+		List<List<Entry>> duplicates = new ArrayList<>();
+		for (List<Entry> group : groups.values()) {
+			if (group.size() > 1) {
+				duplicates.add(group);
+			}
+		}
+		return duplicates;
+	}
+
+	// Writes the index next to the mazes (through a temp file, so a crash never leaves half an index)
+	private void writeIndex() throws IOException {
+		File index = new File(directory, INDEX_NAME);
+		File temp = new File(directory, INDEX_NAME + ".tmp");
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(entries.size());
+			for (Entry entry : entries.values()) {
+				out.writeUTF(entry.name);
+				out.writeLong(entry.size);
+				out.writeLong(entry.modified);
+				out.writeInt(entry.width);
+				out.writeInt(entry.height);
+				out.writeLong(entry.hash);
+				out.writeInt(entry.start);
+				out.writeInt(entry.target);
+				out.writeFloat(entry.wallDensity);
+				out.writeInt(entry.pathLength);
+				out.writeInt(entry.components);
+			}
+		}
+		Files.move(temp.toPath(), index.toPath(), StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	private void readIndex(File index) throws IOException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(index)))) {
+			if (in.readInt() != MAGIC) {
+				throw new IOException("Not a maze index");
+			}
+			int count = in.readInt();
+			for (int i = 0; i < count; i++) {
+				Entry entry = new Entry(in.readUTF(), in.readLong(), in.readLong(), in.readInt(), in.readInt(),
+						in.readLong(), in.readInt(), in.readInt(), in.readFloat(), in.readInt(), in.readInt());
+				entries.put(entry.name, entry);
+			}
+		}
+	}
+
+	/**
+	 * Usage: MazeLibrary <directory> [list | unsolvable | larger CELLS | longer LENGTH | duplicates | add FILE]
+	 * The index is updated first.
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1) {
+			System.out.println("Usage: MazeLibrary <directory> [list | unsolvable | larger CELLS | longer LENGTH"
+					+ " | duplicates | add FILE]");
+			return;
+		}
+		long startTime = System.currentTimeMillis();
+		MazeLibrary library = new MazeLibrary(new File(args[0]));
+		int read = library.update();
+		System.out.println("Index: " + library.entries().size() + " mazes, " + read + " read in "
+				+ (System.currentTimeMillis() - startTime) + " ms");
+
+		String command = args.length > 1 ? args[1] : "list";
+		List<Entry> result;
+		switch (command) {
+		case "unsolvable":
+			result = library.query(entry -> !entry.isSolvable());
+			break;
+		case "larger":
+			long cells = Long.parseLong(args[2]);
+			result = library.query(entry -> entry.getCells() > cells);
+			break;
+		case "longer":
+			int length = Integer.parseInt(args[2]);
+			result = library.query(entry -> entry.getPathLength() > length);
+			break;
+		case "duplicates":
+			for (List<Entry> group : library.duplicates()) {
+				System.out.println("Same maze:");
+				for (Entry entry : group) {
+					System.out.println("  " + entry.getName());
+				}
+			}
+			return;
+		case "add":
+			System.out.println("Stored as " + library.add(new File(args[2])));
+			return;
+		default:
+			result = library.query(entry -> true);
+			break;
+		}
+		for (Entry entry : result) {
+			System.out.println(entry);
+		}
+	}
+}
@@ -0,0 +1,831 @@
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+/**
+ * Collision-free paths for many agents sharing one maze (cooperative A* / windowed HCA*).
+ * Agents are planned one after another in priority order. Each agent runs A* in space-time,
+ * where a state is (cell, time) and waiting in place is a move, against a reservation table
+ * holding the cells every earlier agent occupies at every time step. Entering a cell of cost c
+ * takes c time steps, spent waiting in the cell being left.
+ * Two agents never share a cell at the same time and never swap cells in one step.
+ *
+ * The heuristic is the exact single-agent distance to the agent's target, read from the
+ * FlowField of that target (one backward search per target, shared with the rest of the program),
+ * so the low-level search only spends expansions on detours around other agents.
+ *
+ * Full mode (window 0) plans every path to the end and then keeps the agent parked on its
+ * target, so an agent only finishes once no earlier agent passes its target later on.
+ * An agent without a path within the limits is given up on: it stays on its start for good, and
+ * the plan is made again with that cell blocked from the start, so nobody else walks through it.
+ * Windowed mode plans only window steps ahead, moves every agent window / 2 steps, then
+ * replans all of them with the priorities rotated, so no agent is stuck behind the same
+ * neighbour forever. A round in which some agent is boxed in is planned again with that agent first.
+ *
+ * Prioritized planning is sequential by nature; it is spread over the fork-join pool by
+ * planning a batch of agents at once against the same table, then committing them in priority
+ * order. A path is committed only if it is still free after the agents committed before it,
+ * otherwise that agent is planned again in the next batch. Reservations only ever remove
+ * options, so a committed path is as good as the one a purely sequential planner would find.
+ * With a pool of parallelism 1 the batches are single agents, i.e. plain cooperative A*.
+ */
+public class MultiAgentPlanner {
+
+	private static final int FREE = -1;				// Owner of an unreserved (cell, time)
+	private static final int NEVER = Integer.MAX_VALUE;
+	private static final int MAX_RETRIES = 3;		// Replans of a window round with the stuck agents first
+
+	private final Grid grid;
+	private final int cells;
+	private ForkJoinPool pool = ForkJoinPool.commonPool();
+	private int window;								// Steps planned ahead per round (0 = whole paths)
+	private int maxDelay = 256;						// Extra time steps an agent may spend on top of twice its distance
+	private long maxExpansions = 1_000_000;			// Per low-level search
+
+	public MultiAgentPlanner(Grid grid) {
+		this.grid = grid;
+		this.cells = grid.cells();
+	}
+
+	// Pool the low-level searches run on (default: the common pool)
+	public MultiAgentPlanner setPool(ForkJoinPool pool) {
+		this.pool = pool;
+		return this;
+	}
+
+	// Steps planned ahead per round in windowed mode, 0 plans whole paths (default)
+	public MultiAgentPlanner setWindow(int window) {
+		if (window < 0 || window == 1) {
+			throw new IllegalArgumentException("Window must be 0 or at least 2: " + window);
+		}
+		this.window = window;
+		return this;
+	}
+
+	/**
+	 * Limits of one low-level search: an agent gives up once it would arrive later than
+	 * 2 * distance + maxDelay, or after maxExpansions expanded states.
+	 */
+	public MultiAgentPlanner setLimits(int maxDelay, long maxExpansions) {
+		this.maxDelay = maxDelay;
+		this.maxExpansions = maxExpansions;
+		return this;
+	}
+
+	/**
+	 * Plans a path for every agent, agent i going from starts[i] to targets[i].
+	 * Starts must be distinct open cells, and so must targets.
+	 */
+	public Plan plan(int[] starts, int[] targets) {
+		long t0 = System.nanoTime();
+		int agents = starts.length;
+		check(starts, targets);
+
+		// Exact distance heuristics, one backward search per target; the targets are independent
+		FlowField[] fields = new FlowField[agents];
+		pool.submit(() -> IntStream.range(0, agents).parallel()
+				.forEach(a -> fields[a] = FlowField.forTarget(grid, targets[a]))).join();
+
+		// Agents with the longest way to go first: they have the fewest alternatives
+		Integer[] boxed = new Integer[agents];
+		for (int a = 0; a < agents; a++) boxed[a] = a;
+		Arrays.sort(boxed, (a, b) -> Integer.compare(fields[b].distance(starts[b]), fields[a].distance(starts[a])));
+		int[] order = new int[agents];
+		int deadline = 0;
+		for (int i = 0; i < agents; i++) {
+			order[i] = boxed[i];
+			deadline = Math.max(deadline, 2 * fields[order[i]].distance(starts[order[i]]) + maxDelay);
+		}
+
+		// One low-level search per batch slot, reused between agents and dropped with this plan
+		Stats stats = new Stats(batchSize());
+		int[][] paths;
+		if (window == 0) {
+			paths = planWhole(starts, targets, fields, order, stats);
+		} else {
+			paths = planWindowed(starts, targets, fields, order, deadline, stats);
+		}
+		return new Plan(paths, targets, stats.expansions.sum(), stats.searches, System.nanoTime() - t0);
+	}
+
+	private void check(int[] starts, int[] targets) {
+		if (starts.length != targets.length) {
+			throw new IllegalArgumentException(starts.length + " starts but " + targets.length + " targets");
+		}
+		long[] used = new long[(cells + 63) >>> 6];
+		long[] aimed = new long[(cells + 63) >>> 6];
+		for (int a = 0; a < starts.length; a++) {
+			if (!claim(used, starts[a]) || !claim(aimed, targets[a])) {
+				throw new IllegalArgumentException("Agent " + a + ": start and target must be distinct open cells");
+			}
+		}
+	}
+
+	private boolean claim(long[] bits, int cell) {
+		if (cell < 0 || cell >= cells || grid.isWall(cell) || (bits[cell >>> 6] & (1L << cell)) != 0) return false;
+		bits[cell >>> 6] |= 1L << cell;
+		return true;
+	}
+
+	/**
+	 * Cooperative A*: whole paths, every agent parked on its target once it arrives.
+	 * Agents given up on are parked on their start from time 0 and everybody else is planned again,
+	 * until an attempt gives up on nobody new.
+	 */
+	private int[][] planWhole(int[] starts, int[] targets, FlowField[] fields, int[] order, Stats stats) {
+		int agents = starts.length;
+		boolean[] givenUp = new boolean[agents];
+		while (true) {
+			Reservations table = new Reservations(cells, agents);
+			int[][] paths = new int[agents][];
+			IntList planned = new IntList(agents);
+			for (int a : order) {
+				if (givenUp[a]) {
+					paths[a] = new int[] { starts[a] };
+					table.reserve(a, paths[a], 0, true);
+					table.committed[a] = true;
+				} else {
+					planned.add(a);
+				}
+			}
+			table.stand(starts);
+			table.base = 0;
+			commitInBatches(table, planned.toArray(), true, stats, (search, a) -> {
+				int limit = 2 * fields[a].distance(starts[a]) + maxDelay;
+				return search.plan(table, a, starts[a], 0, targets[a], fields[a], limit, true, 0);
+			}, (a, path) -> {
+				table.reserve(a, path, 0, true);
+				paths[a] = path;
+			});
+
+			boolean again = false;
+			for (int a = 0; a < agents; a++) {
+				if (paths[a] == null) {
+					givenUp[a] = true;
+					again = true;
+				}
+			}
+			if (!again) return paths;
+		}
+	}
+
+	// Windowed HCA*: plan window steps, move window / 2, replan with rotated priorities
+	private int[][] planWindowed(int[] starts, int[] targets, FlowField[] fields, int[] order, int deadline,
+			Stats stats) {
+		int agents = starts.length;
+		Reservations table = new Reservations(cells, agents);
+		int step = window / 2;
+		int[] at = starts.clone();
+		IntList[] trails = new IntList[agents];
+		for (int a = 0; a < agents; a++) {
+			trails[a] = new IntList();
+			trails[a].add(starts[a]);
+		}
+		int[][] windows = new int[agents][];
+		int[] rotated = new int[agents];
+		int[] credit = new int[agents];			// Steps each agent has been waiting on its cell
+
+		for (int now = 0, round = 0; now < deadline && !arrived(at, targets); now += step, round++) {
+			int time = now;
+			// Rotated priorities, agents still on their way before the ones resting on their target
+			int first = 0;
+			for (int i = 0; i < agents; i++) {
+				int a = order[(i + round) % agents];
+				if (at[a] != targets[a]) rotated[first++] = a;
+			}
+			for (int i = 0; i < agents; i++) {
+				int a = order[(i + round) % agents];
+				if (at[a] == targets[a]) rotated[first++] = a;
+			}
+
+			// An agent boxed in by earlier ones gets no window; the round is planned again with it first
+			for (int attempt = 0;; attempt++) {
+				table.clear();
+				table.stand(at);
+				table.base = time;
+				Arrays.fill(windows, null);
+				commitInBatches(table, rotated, false, stats, (search, a) -> search.plan(table, a, at[a], time,
+						targets[a], fields[a], time + window, false, credit[a]), (a, path) -> {
+							table.reserve(a, path, time, false);
+							windows[a] = path;
+						});
+				if (attempt == MAX_RETRIES || !promoteStuck(rotated, windows)) break;
+			}
+
+			for (int a = 0; a < agents; a++) {
+				// Still without a window after the retries: wait, Plan.conflicts() reports what that costs
+				for (int s = 1; s <= step; s++) {
+					trails[a].add(windows[a] == null ? at[a] : windows[a][s]);
+				}
+				IntList trail = trails[a];
+				at[a] = trail.get(trail.size() - 1);
+				int waited = 0;
+				while (waited < trail.size() - 1 && trail.get(trail.size() - 2 - waited) == at[a]) waited++;
+				credit[a] = waited;
+			}
+		}
+
+		int[][] paths = new int[agents][];
+		for (int a = 0; a < agents; a++) {
+			IntList trail = trails[a];
+			int end = trail.size();
+			while (end > 1 && trail.get(end - 2) == targets[a] && trail.get(end - 1) == targets[a]) end--;
+			paths[a] = Arrays.copyOf(trail.toArray(), end); // Drop the waiting after the final arrival
+		}
+		return paths;
+	}
+
+	// Moves the agents without a window to the front of order, false if there are none
+	private static boolean promoteStuck(int[] order, int[][] windows) {
+		int[] moved = new int[order.length];
+		int first = 0;
+		for (int a : order) {
+			if (windows[a] == null) moved[first++] = a;
+		}
+		if (first == 0) return false;
+		for (int a : order) {
+			if (windows[a] != null) moved[first++] = a;
+		}
+		System.arraycopy(moved, 0, order, 0, order.length);
+		return true;
+	}
+
+	private static boolean arrived(int[] at, int[] targets) {
+		for (int a = 0; a < at.length; a++) {
+			if (at[a] != targets[a]) return false;
+		}
+		return true;
+	}
+
+	private interface Planner {
+		int[] plan(Search search, int agent);
+	}
+
+	private interface Committer {
+		void commit(int agent, int[] path);
+	}
+
+	/**
+	 * Plans the agents in order, a batch at a time on the pool, and commits each path that is still
+	 * free after the ones committed before it. The first agent of a batch always sees the table it was
+	 * planned against, so every batch commits (or definitely fails) at least one agent.
+	 */
+	private void commitInBatches(Reservations table, int[] order, boolean park, Stats stats, Planner planner,
+			Committer committer) {
+		int batch = stats.searchers.length;
+		IntList pending = new IntList(order.length);
+		for (int a : order) pending.add(a);
+		int[][] plans = new int[batch][];
+
+		while (!pending.isEmpty()) {
+			int size = Math.min(batch, pending.size());
+			int[] agents = new int[size];
+			for (int i = 0; i < size; i++) agents[i] = pending.get(i);
+			if (size == 1) {
+				plans[0] = run(planner, 0, agents[0], stats);
+			} else {
+				pool.submit(() -> IntStream.range(0, size).parallel()
+						.forEach(i -> plans[i] = run(planner, i, agents[i], stats))).join();
+			}
+
+			IntList retry = new IntList();
+			for (int i = 0; i < size; i++) {
+				int a = agents[i];
+				int[] path = plans[i];
+				if (i == 0 || (path != null && table.allows(a, path, table.base, park))) {
+					if (path != null) committer.commit(a, path);
+					table.committed[a] = true;
+				} else {
+					retry.add(a);
+				}
+			}
+			for (int i = size; i < pending.size(); i++) retry.add(pending.get(i));
+			pending = retry;
+			stats.searches += size;
+		}
+	}
+
+	// Agents planned together, one per batch slot
+	private int batchSize() {
+		return pool.getParallelism() > 1 ? 2 * pool.getParallelism() : 1;
+	}
+
+	// Plans agent with the search of batch slot (only one agent at a time runs in a slot)
+	private int[] run(Planner planner, int slot, int agent, Stats stats) {
+		Search search = stats.searchers[slot];
+		if (search == null) {
+			search = new Search();
+			stats.searchers[slot] = search;
+		}
+		int[] path = planner.plan(search, agent);
+		stats.expansions.add(search.expansions);
+		return path;
+	}
+
+	/**
+	 * Owner of every reserved (cell, time), in a primitive hash map keyed by time * cells + cell.
+	 * Whole-path agents also park on their target from their arrival time on.
+	 * Agents standing on a cell at the start of a round keep it for the first step until they are
+	 * committed themselves, so nobody plans to walk into an agent that has no time to step aside.
+	 */
+	private static class Reservations {
+		final int cells;
+		final LongIntMap owners = new LongIntMap();
+		final int[] parkedFrom;			// Time from which a parked agent holds the cell
+		final int[] parkedBy;
+		final int[] lastUsed;			// Latest reserved time of each cell (-1 = none)
+		final int[] standing;			// Agent on each cell at the start of the round
+		final boolean[] committed;
+		int base;						// Time the round starts at
+
+		Reservations(int cells, int agents) {
+			this.cells = cells;
+			this.parkedFrom = new int[cells];
+			this.parkedBy = new int[cells];
+			this.lastUsed = new int[cells];
+			this.standing = new int[cells];
+			this.committed = new boolean[agents];
+			Arrays.fill(parkedFrom, NEVER);
+			Arrays.fill(lastUsed, -1);
+			Arrays.fill(standing, FREE);
+		}
+
+		void clear() {
+			owners.clear();
+			Arrays.fill(lastUsed, -1);
+			Arrays.fill(standing, FREE);
+			Arrays.fill(committed, false);
+		}
+
+		void stand(int[] at) {
+			for (int a = 0; a < at.length; a++) standing[at[a]] = a;
+		}
+
+		int owner(int cell, int time) {
+			if (time >= parkedFrom[cell]) return parkedBy[cell];
+			return owners.get((long) time * cells + cell);
+		}
+
+		// True if agent may be on cell at time
+		boolean free(int agent, int cell, int time) {
+			if (time == base + 1) {
+				int stander = standing[cell];
+				if (stander != FREE && stander != agent && !committed[stander]) return false;
+			}
+			return owner(cell, time) == FREE;
+		}
+
+		// True if agent may step from one cell to the other, arriving at time
+		boolean canMove(int agent, int from, int to, int time) {
+			if (!free(agent, to, time)) return false;
+			int other = owner(to, time - 1);
+			return other == FREE || other != owner(from, time); // No swapping places
+		}
+
+		// True if the whole path, starting at time start, is still free (and with park, its last cell afterwards)
+		boolean allows(int agent, int[] path, int start, boolean park) {
+			if (park && start + path.length - 1 <= lastUsed[path[path.length - 1]]) return false;
+			for (int i = 1; i < path.length; i++) {
+				int from = path[i - 1];
+				int to = path[i];
+				if (from == to ? !free(agent, to, start + i) : !canMove(agent, from, to, start + i)) return false;
+			}
+			return true;
+		}
+
+		// Reserves the path; with park the agent also keeps its last cell for good
+		void reserve(int agent, int[] path, int start, boolean park) {
+			for (int i = 0; i < path.length; i++) {
+				int cell = path[i];
+				owners.put((long) (start + i) * cells + cell, agent);
+				lastUsed[cell] = Math.max(lastUsed[cell], start + i);
+			}
+			if (park) {
+				int last = path[path.length - 1];
+				parkedFrom[last] = start + path.length - 1;
+				parkedBy[last] = agent;
+			}
+		}
+	}
+
+	/**
+	 * Space-time A* for one agent. States are (cell, time) and cost is elapsed time, so the
+	 * first time a state is generated it already has its best cost and a seen-set is all the
+	 * closed list needed.
+	 */
+	private final class Search {
+		private static final int INITIAL = 1024;
+
+		private final LongIntMap seen = new LongIntMap();
+		private final OpenList open = new OpenList();
+		private final int[] around = new int[4];
+		private int[] nodeCell = new int[INITIAL];
+		private int[] nodeTime = new int[INITIAL];
+		private int[] nodeParent = new int[INITIAL];
+		private int nodes;
+		private int settle;				// Earliest time the plan can end
+		long expansions;				// Of the last plan
+
+		/**
+		 * Positions of agent at times start, start + 1, ... or null if there is no free path.
+		 * With park the path ends on target at a time after which nobody else uses target;
+		 * otherwise it ends at the first state reaching time horizon.
+		 * credit is the number of steps the agent has already been waiting on source, which counts
+		 * towards its first move onto slow terrain.
+		 */
+		int[] plan(Reservations table, int agent, int source, int start, int target, FlowField field, int horizon,
+				boolean park, int credit) {
+			seen.clear();
+			open.clear();
+			nodes = 0;
+			// A parked agent cannot finish before the last time someone else passes its target
+			settle = park ? table.lastUsed[target] + 1 : 0;
+			add(source, start, -1, field);
+			long expansions = 0;
+			while (!open.isEmpty()) {
+				int node = open.pop();
+				int cell = nodeCell[node];
+				int time = nodeTime[node];
+				if (park ? cell == target && time > table.lastUsed[target] : time >= horizon) {
+					this.expansions = expansions;
+					return path(node, start);
+				}
+				if (++expansions > maxExpansions) break;
+
+				// Wait
+				if (time + 1 <= horizon && table.free(agent, cell, time + 1)) {
+					add(cell, time + 1, node, field);
+				}
+				int count = grid.neighbours(cell, around);
+				for (int n = 0; n < count; n++) {
+					int next = around[n];
+					int cost = grid.cost(next);
+					if (node == 0) cost = Math.max(1, cost - credit); // Part of the first move already waited
+					int arrive = time + cost;
+					if (arrive > horizon && park) continue;
+					if (field.distance(next) < 0 || !table.canMove(agent, cell, next, arrive)) continue;
+					if (!waits(table, agent, cell, time + 1, arrive)) continue;
+					add(next, arrive, node, field);
+				}
+			}
+			this.expansions = expansions;
+			return null;
+		}
+
+		// True if agent can stay on cell for times from .. to - 1 (slow terrain ahead)
+		private boolean waits(Reservations table, int agent, int cell, int from, int to) {
+			for (int t = from; t < to; t++) {
+				if (!table.free(agent, cell, t)) return false;
+			}
+			return true;
+		}
+
+		private void add(int cell, int time, int parent, FlowField field) {
+			long key = (long) time * cells + cell;
+			if (seen.get(key) != FREE) return;
+			if (nodes == nodeCell.length) {
+				nodeCell = Arrays.copyOf(nodeCell, nodes * 2);
+				nodeTime = Arrays.copyOf(nodeTime, nodes * 2);
+				nodeParent = Arrays.copyOf(nodeParent, nodes * 2);
+			}
+			nodeCell[nodes] = cell;
+			nodeTime[nodes] = time;
+			nodeParent[nodes] = parent;
+			seen.put(key, nodes);
+			int h = field.distance(cell);
+			open.push(Math.max(time + h, settle), h, nodes);
+			nodes++;
+		}
+
+		// One position per time step; a multi-step move waits on the cell it leaves
+		private int[] path(int node, int start) {
+			int[] path = new int[nodeTime[node] - start + 1];
+			int filled = path.length;
+			while (node >= 0) {
+				int until = filled;
+				filled = nodeTime[node] - start;
+				for (int t = filled; t < until; t++) path[t] = nodeCell[node];
+				node = nodeParent[node];
+			}
+			return path;
+		}
+	}
+
+	// Per plan() call: counters and the searches of the batch slots
+	private static class Stats {
+		final LongAdder expansions = new LongAdder();
+		final Search[] searchers;
+		int searches;
+
+		Stats(int batch) {
+			searchers = new Search[batch];
+		}
+	}
+
+	/**
+	 * Paths of all agents, one position per time step from time 0.
+	 * After its path ends an agent stays on its last cell. Agents the whole-path planner gave up on
+	 * have a one-cell path and stay on their start; windowed paths may end before the target.
+	 */
+	public static class Plan {
+		private final int[][] paths;
+		private final int[] targets;
+		private final long expansions;
+		private final int searches;
+		private final long nanos;
+
+		Plan(int[][] paths, int[] targets, long expansions, int searches, long nanos) {
+			this.paths = paths;
+			this.targets = targets;
+			this.expansions = expansions;
+			this.searches = searches;
+			this.nanos = nanos;
+		}
+
+		public int agents() {
+			return paths.length;
+		}
+
+		// Positions of agent per time step
+		public int[] getPath(int agent) {
+			return paths[agent];
+		}
+
+		public boolean isSolved(int agent) {
+			int[] path = paths[agent];
+			return path[path.length - 1] == targets[agent];
+		}
+
+		public int solved() {
+			int solved = 0;
+			for (int a = 0; a < paths.length; a++) {
+				if (isSolved(a)) solved++;
+			}
+			return solved;
+		}
+
+		// Time the last agent arrives
+		public int makespan() {
+			int makespan = 0;
+			for (int[] path : paths) {
+				makespan = Math.max(makespan, path.length - 1);
+			}
+			return makespan;
+		}
+
+		// Arrival times of the solved agents added up
+		public long sumOfCosts() {
+			long sum = 0;
+			for (int a = 0; a < paths.length; a++) {
+				if (isSolved(a)) sum += paths[a].length - 1;
+			}
+			return sum;
+		}
+
+		public long getExpansions() {
+			return expansions;
+		}
+
+		// Low-level searches run, including the ones repeated after a conflict in a batch
+		public int getSearches() {
+			return searches;
+		}
+
+		public double getMillis() {
+			return nanos / 1e6;
+		}
+
+		/**
+		 * Counts the vertex conflicts (two agents on one cell at the same time) and swap conflicts
+		 * (two agents trading cells in one step) between all agents, including the ones left on their
+		 * start. Checked independently of the reservation table, so 0 means the plan really is collision-free.
+		 */
+		public int conflicts() {
+			int size = 0;
+			int last = 0;
+			for (int[] path : paths) {
+				last = Math.max(last, path.length - 1);
+				for (int cell : path) size = Math.max(size, cell + 1);
+			}
+			int[][] stamp = new int[2][size];
+			int[][] who = new int[2][size];
+			Arrays.fill(stamp[0], -1);
+			Arrays.fill(stamp[1], -1);
+
+			int conflicts = 0;
+			for (int t = 0; t <= last; t++) {
+				int now = t & 1;
+				int before = now ^ 1;
+				for (int a = 0; a < paths.length; a++) {
+					int cell = at(a, t);
+					if (stamp[now][cell] == t) {
+						conflicts++;
+					} else {
+						stamp[now][cell] = t;
+						who[now][cell] = a;
+					}
+				}
+				if (t == 0) continue;
+				for (int a = 0; a < paths.length; a++) {
+					int cell = at(a, t);
+					int from = at(a, t - 1);
+					if (cell == from || stamp[before][cell] != t - 1) continue;
+					int other = who[before][cell];
+					if (other > a && at(other, t) == from) conflicts++;
+				}
+			}
+			return conflicts;
+		}
+
+		private int at(int agent, int time) {
+			int[] path = paths[agent];
+			return path[Math.min(time, path.length - 1)];
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%d/%d agents, makespan %d, sum of costs %d, %d expansions in %d searches, %.1f ms",
+					solved(), agents(), makespan(), sumOfCosts(), expansions, searches, getMillis());
+		}
+	}
+
+	/**
+	 * Open-addressing hash map from long keys (>= 0) to agent / node indices,
+	 * FREE for missing keys. Nothing is ever removed, only the whole map cleared.
+	 */
+	private static class LongIntMap {
+		private static final long EMPTY = -1;
+		private static final int MIN_CAPACITY = 256;
+
+		private long[] keys;
+		private int[] values;
+		private int size;
+
+		LongIntMap() {
+			allocate(MIN_CAPACITY);
+		}
+
+		int get(long key) {
+			int mask = keys.length - 1;
+			for (int i = slot(key, mask);; i = (i + 1) & mask) {
+				long k = keys[i];
+				if (k == key) return values[i];
+				if (k == EMPTY) return FREE;
+			}
+		}
+
+		void put(long key, int value) {
+			if (2 * (size + 1) > keys.length) grow();
+			int mask = keys.length - 1;
+			int i = slot(key, mask);
+			while (keys[i] != EMPTY && keys[i] != key) i = (i + 1) & mask;
+			if (keys[i] == EMPTY) size++;
+			keys[i] = key;
+			values[i] = value;
+		}
+
+		// Empties the map; a table far larger than what it held is halved so clearing stays cheap
+		void clear() {
+			if (keys.length > MIN_CAPACITY && size < keys.length >>> 3) {
+				allocate(keys.length >>> 1);
+			} else if (size > 0) {
+				Arrays.fill(keys, EMPTY);
+			}
+			size = 0;
+		}
+
+		private void grow() {
+			long[] oldKeys = keys;
+			int[] oldValues = values;
+			allocate(keys.length * 2);
+			for (int i = 0; i < oldKeys.length; i++) {
+				if (oldKeys[i] != EMPTY) put(oldKeys[i], oldValues[i]);
+			}
+		}
+
+		private void allocate(int capacity) {
+			keys = new long[capacity];
+			values = new int[capacity];
+			Arrays.fill(keys, EMPTY);
+		}
+
+		private static int slot(long key, int mask) {
+			long h = key * 0x9E3779B97F4A7C15L;
+			return (int) (h ^ (h >>> 32)) & mask;
+		}
+	}
+
+	/**
+	 * Binary min-heap of (f, h, node) in parallel primitive arrays.
+	 * Equal f pops the node with the smaller h first, i.e. the one closer to the target.
+	 */
+	private static class OpenList {
+		private int[] fs = new int[64];
+		private int[] hs = new int[64];
+		private int[] nodes = new int[64];
+		private int size;
+
+		void push(int f, int h, int node) {
+			if (size == fs.length) {
+				fs = Arrays.copyOf(fs, size * 2);
+				hs = Arrays.copyOf(hs, size * 2);
+				nodes = Arrays.copyOf(nodes, size * 2);
+			}
+			int i = size++;
+			while (i > 0) {
+				int parent = (i - 1) >>> 1;
+				if (!less(f, h, fs[parent], hs[parent])) break;
+				set(i, fs[parent], hs[parent], nodes[parent]);
+				i = parent;
+			}
+			set(i, f, h, node);
+		}
+
+		int pop() {
+			int top = nodes[0];
+			size--;
+			int f = fs[size];
+			int h = hs[size];
+			int node = nodes[size];
+			int i = 0;
+			while (true) {
+				int child = 2 * i + 1;
+				if (child >= size) break;
+				if (child + 1 < size && less(fs[child + 1], hs[child + 1], fs[child], hs[child])) child++;
+				if (!less(fs[child], hs[child], f, h)) break;
+				set(i, fs[child], hs[child], nodes[child]);
+				i = child;
+			}
+			set(i, f, h, node);
+			return top;
+		}
+
+		private static boolean less(int f, int h, int otherF, int otherH) {
+			return f < otherF || (f == otherF && h < otherH);
+		}
+
+		private void set(int i, int f, int h, int node) {
+			fs[i] = f;
+			hs[i] = h;
+			nodes[i] = node;
+		}
+
+		boolean isEmpty() {
+			return size == 0;
+		}
+
+		void clear() {
+			size = 0;
+		}
+	}
+
+	/**
+	 * Scales the number of agents on a generated maze, planning whole paths and windows,
+	 * on one thread and on every core, and checks every plan for conflicts.
+	 * Usage: MultiAgentPlanner [side] [window] (defaults 201 and 16)
+	 */
+	public static void main(String[] args) {
+		int side = args.length > 0 ? Integer.parseInt(args[0]) : 201;
+		int window = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+		Grid grid = MazeGenerator.random(side, side, 0.2, 1);
+
+		// Agents are placed in the part of the maze connected to its centre
+		int[] reach = grid.bfsDistances(grid.index(side / 2, side / 2));
+		IntList open = new IntList();
+		for (int cell = 0; cell < grid.cells(); cell++) {
+			if (reach[cell] >= 0) open.add(cell);
+		}
+		int cores = Runtime.getRuntime().availableProcessors();
+		ForkJoinPool single = new ForkJoinPool(1);
+		ForkJoinPool[] pools = ForkJoinPool.commonPool().getParallelism() > 1
+				? new ForkJoinPool[] { single, ForkJoinPool.commonPool() }
+				: new ForkJoinPool[] { single };
+		System.out.printf("%dx%d maze (20%% walls, %d connected cells), %d cores%n", side, side, open.size(), cores);
+
+		for (int agents = 50; agents <= 800 && 2 * agents <= open.size(); agents *= 2) {
+			Random random = new Random(agents);
+			int[] cells = open.toArray();
+			for (int i = 0; i < 2 * agents; i++) { // Partial shuffle: first the starts, then the targets
+				int j = i + random.nextInt(cells.length - i);
+				int swap = cells[i];
+				cells[i] = cells[j];
+				cells[j] = swap;
+			}
+			int[] starts = Arrays.copyOfRange(cells, 0, agents);
+			int[] targets = Arrays.copyOfRange(cells, agents, 2 * agents);
+
+			for (int w : new int[] { 0, window }) {
+				for (ForkJoinPool pool : pools) {
+					FlowField.clearCache();
+					MultiAgentPlanner planner = new MultiAgentPlanner(grid).setPool(pool).setWindow(w);
+					Plan plan = planner.plan(starts, targets);
+					System.out.printf("%4d agents, %-10s %2d threads: %s, %d conflicts%n", agents,
+							w == 0 ? "CA*" : "WHCA*(" + w + ")", pool.getParallelism(), plan, plan.conflicts());
+				}
+			}
+		}
+		single.shutdown();
+	}
+}
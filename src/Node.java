@@ -15,6 +15,13 @@ public class Node {
 	private int Ypos; // Y Coordinate (in pixels)
 	
 	private Color nodeColor = Color.LIGHT_GRAY; // Default color of an unvisited node
+
+	// Search colors (explored, path, ...) sit on top of nodeColor and only count while their stamp
+	// equals the current search epoch, so clearing every search result is one increment
+	private static int searchEpoch = 1;
+	private Color searchColor;
+	private int searchStamp;
+	private static volatile long changes;	// Bumped on every color or weight change, see changes()
 	
 	private final int WIDTH = 35;	// Width of the node in pixels
 	private final int HEIGHT = 35;	// Height of the node in pixels
@@ -24,6 +31,8 @@ public class Node {
 
 	private double fcost; // Total estimated cost used in A* (g + h)
 
+	private int weight = 1; // Cost of stepping onto this node (1 = normal, 4-9 = terrain)
+
 	// Constructor that initializes a nodes position
 	public Node(int x, int y) {
 		Xpos = x;
@@ -52,8 +61,12 @@ public class Node {
 	public void render(Graphics2D g) {
 		g.setColor(Color.BLACK); // Draw border
 		g.drawRect(Xpos, Ypos, WIDTH, HEIGHT);
-		g.setColor(nodeColor); // Fill color
+		g.setColor(getColor()); // Fill color
 		g.fillRect(Xpos + 1, Ypos + 1, WIDTH - 1, HEIGHT - 1);
+		if (weight > 1 && !isWall()) {
+			g.setColor(Color.DARK_GRAY); // Show terrain cost
+			g.drawString(Integer.toString(weight), Xpos + WIDTH / 2 - 3, Ypos + HEIGHT / 2 + 5);
+		}
 	}
 
 	/**
@@ -64,15 +77,15 @@ public class Node {
 	public void Clicked(int buttonCode) {
 		System.out.println("called");
 		if (buttonCode == 1) {
-			nodeColor = Color.BLACK;	// Wall (impassable)
+			setColor(Color.BLACK);		// Wall (impassable)
 
 		}
 		if (buttonCode == 2) {
-			nodeColor = Color.GREEN;	// Start node
+			setColor(Color.GREEN);		// Start node
 
 		}
 		if (buttonCode == 3) {
-			nodeColor = Color.RED;		// End node
+			setColor(Color.RED);		// End node
 
 		}
 		if (buttonCode == 4) {
@@ -90,13 +103,55 @@ public class Node {
 		this.fcost = fcost;
 	}
 
-	// Change the visual color of the node
+	// Getter and setter for terrain cost used in weighted searches
+	public int getWeight() {
+		return weight;
+	}
+
+	public void setWeight(int weight) {
+		this.weight = weight;
+		changes++;
+	}
+
+	/**
+	 * Cycles the terrain cost: 1 -> 4 -> 5 -> ... -> 9 -> 1
+	 */
+	public void cycleWeight() {
+		setWeight(weight == 1 ? 4 : weight == 9 ? 1 : weight + 1);
+	}
+
+	/**
+	 * Change the visual color of the node.
+	 * Maze colors (wall, open, start, end) change the node itself; any other color is a search result
+	 * and is dropped by the next clearSearches().
+	 */
 	public void setColor(Color c) {
-		nodeColor = c;
+		if (c == Color.BLACK || c == Color.LIGHT_GRAY || c == Color.GREEN || c == Color.RED) {
+			nodeColor = c;
+			searchStamp = 0;
+		} else {
+			searchColor = c;
+			searchStamp = searchEpoch;
+		}
+		changes++;
 	}
 
 	public Color getColor() {
-		return nodeColor;
+		return searchStamp == searchEpoch ? searchColor : nodeColor;
+	}
+
+	// Clears the search colors of every node, O(1)
+	public static void clearSearches() {
+		searchEpoch = searchEpoch == Integer.MAX_VALUE ? 1 : searchEpoch + 1;
+		changes++;
+	}
+
+	/**
+	 * Changes whenever any node changes color or weight, for renderers caching what the board looks like.
+	 * Nodes are colored from several threads, so concurrent bumps may collapse into one; the value still moves.
+	 */
+	public static long changes() {
+		return changes;
 	}
 
 	/**
@@ -129,7 +184,7 @@ public class Node {
 
 	// Reset the node to its default unvisited state
 	public void clearNode() {
-		nodeColor = Color.LIGHT_GRAY;
+		setColor(Color.LIGHT_GRAY);
 	}
 
 	/**
@@ -161,23 +216,25 @@ public class Node {
 
 	// Status checkers based on node color
 	public boolean isWall() {
-		return (nodeColor == Color.BLACK);
+		return (getColor() == Color.BLACK);
 	}
 
 	public boolean isStart() {
-		return (nodeColor == Color.GREEN);
+		return (getColor() == Color.GREEN);
 	}
 
 	public boolean isEnd() {
-		return (nodeColor == Color.RED);
+		return (getColor() == Color.RED);
 	}
 
 	public boolean isPath() {
-		return (nodeColor == Color.LIGHT_GRAY || nodeColor == Color.RED);
+		Color color = getColor();
+		return (color == Color.LIGHT_GRAY || color == Color.RED);
 	}
 
 	public boolean isSearched() {
-		return (nodeColor == Color.BLUE || nodeColor == Color.ORANGE);
+		Color color = getColor();
+		return (color == Color.BLUE || color == Color.ORANGE);
 	}
 
 }
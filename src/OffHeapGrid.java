@@ -0,0 +1,241 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+
+/**
+ * Grid whose cells live outside the Java heap, in direct ByteBuffers.
+ * The wall bitset and the cost plane of a multi-GB maze are then never copied or scanned by the
+ * garbage collector. Solvers use it through the normal Grid methods.
+ * Grid.load and Grid.parse return one for mazes above Grid.LARGE_MAZE_CELLS.
+ *
+ * Solvers that work on whole words (BitWavefront, ParallelBfs) read the wall bits one word at a time
+ * through wallWord(), served straight from the off-heap buffer.
+ */
+public class OffHeapGrid extends Grid {
+
+	private final LongBuffer walls;		// One bit per cell, set = wall
+	private ByteBuffer costs;			// Cost of entering each cell, null while every cell costs 1
+	private int maxCost = 1;
+
+	public OffHeapGrid(int width, int height) {
+		super(width, height, false);
+		int words = (int) (((long) width * height + 63) >>> 6);
+		walls = ByteBuffer.allocateDirect(words * 8).order(ByteOrder.nativeOrder()).asLongBuffer();
+	}
+
+	// Off-heap copy of a grid
+	public static OffHeapGrid copyOf(Grid grid) {
+		OffHeapGrid copy = new OffHeapGrid(grid.getWidth(), grid.getHeight());
+		for (int i = 0; i < grid.wallWords(); i++) {
+			copy.walls.put(i, grid.wallWord(i));
+		}
+		if (grid.isWeighted()) {
+			for (int cell = 0; cell < grid.cells(); cell++) {
+				copy.setCost(cell, grid.cost(cell));
+			}
+		}
+		copy.setStart(grid.getStart());
+		copy.setTarget(grid.getTarget());
+		return copy;
+	}
+
+	/**
+	 * Loads a '.maze' file (same format as Grid.load) straight into off-heap storage.
+	 * The file is read twice, once for the dimensions and once for the cells, so no line
+	 * is kept in memory longer than it takes to read it.
+	 */
+	public static OffHeapGrid load(File file) throws IOException {
+		int[] size = measure(file);
+		return load(file, size[0], size[1]);
+	}
+
+	// Columns and rows of a '.maze' file, read without keeping its lines
+	static int[] measure(File file) throws IOException {
+		int columns = 0;
+		int rows = -1;
+		try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (line.isEmpty()) continue;
+				if (rows < 0) {
+					rows = line.length();
+				} else if (line.length() != rows) {
+					throw new IOException("Ragged maze file " + file + " at line " + (columns + 1));
+				}
+				columns++;
+			}
+		}
+		if (columns == 0) {
+			throw new IOException("Empty maze file: " + file);
+		}
+		return new int[] { columns, rows };
+	}
+
+	// Second pass of load, once the dimensions are known
+	static OffHeapGrid load(File file, int columns, int rows) throws IOException {
+		OffHeapGrid grid = new OffHeapGrid(columns, rows);
+		try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+			String line;
+			int x = 0;
+			while ((line = reader.readLine()) != null && x < columns) {
+				if (line.isEmpty()) continue;
+				for (int y = 0; y < rows; y++) {
+					int cell = grid.index(x, y);
+					char c = line.charAt(y);
+					if (c == '1') {
+						grid.setWall(cell, true);
+					} else if (c == '2') {
+						grid.setStart(cell);
+					} else if (c == '3') {
+						grid.setTarget(cell);
+					} else if (c >= '4' && c <= '9') {
+						grid.setCost(cell, c - '0');
+					}
+				}
+				x++;
+			}
+		}
+		return grid;
+	}
+
+	@Override
+	public boolean isWall(int cell) {
+		return (walls.get(cell >>> 6) & (1L << cell)) != 0;
+	}
+
+	@Override
+	public void setWall(int cell, boolean wall) {
+		long word = walls.get(cell >>> 6);
+		walls.put(cell >>> 6, wall ? word | (1L << cell) : word & ~(1L << cell));
+		cellsChanged();
+	}
+
+	@Override
+	long wallWord(int index) {
+		return walls.get(index);
+	}
+
+	@Override
+	public int cost(int cell) {
+		return costs == null ? 1 : costs.get(cell);
+	}
+
+	@Override
+	public void setCost(int cell, int cost) {
+		if (cost < 1 || cost > 9) {
+			throw new IllegalArgumentException("Cell cost must be between 1 and 9: " + cost);
+		}
+		if (costs == null) {
+			if (cost == 1) return;
+			costs = ByteBuffer.allocateDirect(cells());
+			for (int i = 0; i < cells(); i++) {
+				costs.put(i, (byte) 1);
+			}
+		}
+		costs.put(cell, (byte) cost);
+		maxCost = Math.max(maxCost, cost);
+		cellsChanged();
+	}
+
+	@Override
+	public boolean isWeighted() {
+		return costs != null;
+	}
+
+	@Override
+	public int getMaxCost() {
+		return maxCost;
+	}
+
+	@Override
+	public int getMinCost() {
+		if (costs == null) return 1;
+		int min = maxCost;
+		for (int cell = 0; cell < cells() && min > 1; cell++) {
+			if (isOpen(cell) && costs.get(cell) < min) {
+				min = costs.get(cell);
+			}
+		}
+		return min;
+	}
+
+	// Same hash as an on-heap Grid with the same cells, so cached preprocessing is shared
+	@Override
+	protected long hashCells() {
+		long hash = HASH_SEED;
+		hash = mix(hash, getWidth());
+		hash = mix(hash, getHeight());
+		for (int i = 0; i < walls.capacity(); i++) {
+			hash = mix(hash, walls.get(i));
+		}
+		if (costs != null) {
+			for (int cell = 0; cell < cells(); cell++) {
+				byte cost = costs.get(cell);
+				if (cost != 1) {
+					hash = mix(hash, ((long) cell << 8) | cost);
+				}
+			}
+		}
+		return hash;
+	}
+
+	@Override
+	protected int countOpen() {
+		int walled = 0;
+		for (int i = 0; i < walls.capacity(); i++) {
+			walled += Long.bitCount(walls.get(i));
+		}
+		return cells() - walled;
+	}
+
+	/**
+	 * Back-to-back weighted A* solves on a generated maze, on-heap grid with fresh scratch arrays
+	 * vs off-heap grid with one reused ScratchArena, reporting collections and GC time of each.
+	 * Usage: OffHeapGrid [side] [solves]
+	 */
+	public static void main(String[] args) {
+		int side = args.length > 0 ? Integer.parseInt(args[0]) : 3001;
+		int solves = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+		Grid heap = MazeGenerator.perfect(side, side, 1);
+		OffHeapGrid offHeap = copyOf(heap);
+		ScratchArena arena = new ScratchArena();
+
+		for (int round = 0; round < 2; round++) { // First round warms up
+			long[] gc = gcTotals();
+			long t0 = System.nanoTime();
+			long cost = 0;
+			for (int i = 0; i < solves; i++) {
+				cost += WeightedSearch.astar(heap).getCost();
+			}
+			long t1 = System.nanoTime();
+			long[] gcMid = gcTotals();
+			for (int i = 0; i < solves; i++) {
+				cost -= WeightedSearch.search(offHeap, offHeap.getStart(), offHeap.getTarget(),
+						Heuristic.manhattan(offHeap), arena).getCost();
+			}
+			long t2 = System.nanoTime();
+			long[] gcEnd = gcTotals();
+			if (round == 0) continue;
+			System.out.printf("%dx%d, %d solves: heap grid + fresh arrays %.1f ms (%d GCs, %d ms GC) | "
+					+ "off-heap grid + arena %.1f ms (%d GCs, %d ms GC)%s%n", side, side, solves, (t1 - t0) / 1e6,
+					gcMid[0] - gc[0], gcMid[1] - gc[1], (t2 - t1) / 1e6, gcEnd[0] - gcMid[0], gcEnd[1] - gcMid[1],
+					cost == 0 ? "" : "  MISMATCH");
+		}
+	}
+
+	// Total collections and collection milliseconds over all collectors
+	private static long[] gcTotals() {
+		long[] totals = new long[2];
+		for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+			totals[0] += Math.max(0, bean.getCollectionCount());
+			totals[1] += Math.max(0, bean.getCollectionTime());
+		}
+		return totals;
+	}
+}
@@ -0,0 +1,327 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Level-synchronous, direction-optimizing parallel BFS over bitmap frontiers.
+ * Each BFS level is split into word ranges and expanded on a fork-join pool:
+ * - top-down levels scan the frontier bitmap and claim unvisited neighbours with an atomic OR on the visited bitmap,
+ * - bottom-up levels scan the unvisited cells and look for a parent in the frontier; each task only writes its
+ *   own words, so no atomics are needed.
+ * The search switches to bottom-up when the frontier has many edges compared to the unvisited part of the maze
+ * and back to top-down once the frontier shrinks again (Beamer's heuristic).
+ * Parents are kept as one direction byte per cell. Meant for large open mazes; long 1-wide corridors give
+ * one tiny level per cell and are better served by the sequential solvers.
+ */
+public class ParallelBfs {
+
+	private static final int ALPHA = 14;		// Go bottom-up when frontier edges > unvisited edges / ALPHA
+	private static final int BETA = 24;			// Go back top-down when frontier < open cells / BETA
+	private static final int SPLIT = 4;			// Summary words (64 bitmap words each) per task without splitting
+
+	// Atomic access to single words of plain long[] bitmaps
+	private static final VarHandle WORDS = MethodHandles.arrayElementVarHandle(long[].class);
+
+	private final Grid grid;
+	private final ForkJoinPool pool;
+	private final int width;
+	private final int height;
+	private final int words;
+	private final int rowWords;			// Whole words spanned by one row (a vertical move jumps this many words)
+	private final long[] visited;
+	private final byte[] back;			// Direction from each visited cell back to its parent
+
+	// Frontier bitmaps, each with a summary bitmap holding one bit per non-empty word,
+	// so a level only costs time proportional to the words its frontier touches
+	private long[] frontier;
+	private long[] next;
+	private long[] frontierSummary;
+	private long[] nextSummary;
+	private final long[] candidates;	// Summary of the words a bottom-up level has to look at
+	private boolean dirty;				// A search ran since the bitmaps were last cleared
+
+	public ParallelBfs(Grid grid, ForkJoinPool pool) {
+		this.grid = grid;
+		this.pool = pool;
+		this.width = grid.getWidth();
+		this.height = grid.getHeight();
+		this.words = grid.wallWords();
+		this.rowWords = width >>> 6;
+		this.visited = new long[words];
+		this.back = new byte[grid.cells()];
+		this.frontier = new long[words];
+		this.next = new long[words];
+		int summaryWords = (words + 63) >>> 6;
+		this.frontierSummary = new long[summaryWords];
+		this.nextSummary = new long[summaryWords];
+		this.candidates = new long[summaryWords];
+	}
+
+	// Shortest start-end path on the common fork-join pool
+	public static SearchResult solve(Grid grid) {
+		return new ParallelBfs(grid, ForkJoinPool.commonPool()).search(grid.getStart(), grid.getTarget());
+	}
+
+	/**
+	 * Runs the search from source until the level containing goal is complete.
+	 * Expansions are the number of cells reached.
+	 * An instance can run any number of searches one after another (not at the same time); each one
+	 * after the first starts by clearing the bitmaps, one pass over cells / 64 words.
+	 */
+	public SearchResult search(int source, int goal) {
+		if (source < 0 || goal < 0 || grid.isWall(source) || grid.isWall(goal)) {
+			return SearchResult.notFound(0);
+		}
+		if (dirty) {
+			// back needs no clearing, it is only read for visited cells
+			Arrays.fill(visited, 0);
+			Arrays.fill(frontier, 0);
+			Arrays.fill(next, 0);
+			Arrays.fill(frontierSummary, 0);
+			Arrays.fill(nextSummary, 0);
+			Arrays.fill(candidates, 0);
+		}
+		dirty = true;
+
+		set(visited, source);
+		set(frontier, source);
+		set(frontierSummary, source >>> 6);
+		int lo = source >>> 12;				// Summary word range that can hold frontier bits
+		int hi = lo + 1;
+		int reach = ((rowWords + 2) >>> 6) + 1;	// Summary words a single move can jump
+		long frontierCells = 1;
+		long reached = 1;
+		long openCells = grid.openCells();
+		boolean bottomUp = false;
+		int level = 0;
+
+		while (frontierCells > 0 && !isSet(visited, goal)) {
+			// Direction-optimizing switch, every open cell has at most 4 edges
+			long unvisited = openCells - reached;
+			if (!bottomUp && frontierCells * 4 > unvisited * 4 / ALPHA) {
+				bottomUp = true;
+			} else if (bottomUp && frontierCells < openCells / BETA) {
+				bottomUp = false;
+			}
+
+			int nextLo = Math.max(0, lo - reach);
+			int nextHi = Math.min(frontierSummary.length, hi + reach);
+			if (bottomUp) {
+				markCandidates(lo, hi);
+				frontierCells = pool.invoke(new BottomUp(nextLo, nextHi));
+				Arrays.fill(candidates, nextLo, nextHi, 0);
+			} else {
+				frontierCells = pool.invoke(new TopDown(lo, hi));
+			}
+			reached += frontierCells;
+			level++;
+
+			// Clear the old frontier (only its non-empty words) and swap bitmaps
+			for (int s = lo; s < hi; s++) {
+				for (long bits = frontierSummary[s]; bits != 0; bits &= bits - 1) {
+					frontier[(s << 6) + Long.numberOfTrailingZeros(bits)] = 0;
+				}
+				frontierSummary[s] = 0;
+			}
+			long[] swap = frontier;
+			frontier = next;
+			next = swap;
+			swap = frontierSummary;
+			frontierSummary = nextSummary;
+			nextSummary = swap;
+			lo = nextLo;
+			hi = nextHi;
+			while (lo < hi && frontierSummary[lo] == 0) lo++;
+			while (hi > lo && frontierSummary[hi - 1] == 0) hi--;
+		}
+
+		if (!isSet(visited, goal)) {
+			return SearchResult.notFound(reached);
+		}
+		return new SearchResult(WeightedSearch.path(grid, back, source, goal), level, reached);
+	}
+
+	// Marks every word holding a possible neighbour of a frontier cell as a bottom-up candidate
+	private void markCandidates(int lo, int hi) {
+		for (int s = lo; s < hi; s++) {
+			for (long bits = frontierSummary[s]; bits != 0; bits &= bits - 1) {
+				int w = (s << 6) + Long.numberOfTrailingZeros(bits);
+				markCandidate(w - 1, w + 1);
+				markCandidate(w + rowWords, w + rowWords + 1);
+				markCandidate(w - rowWords - 1, w - rowWords);
+			}
+		}
+	}
+
+	private void markCandidate(int from, int to) {
+		for (int w = Math.max(0, from); w <= Math.min(words - 1, to); w++) {
+			set(candidates, w);
+		}
+	}
+
+	/**
+	 * Top-down step: every frontier cell claims its unvisited open neighbours.
+	 * Claims go through an atomic OR so each cell gets exactly one parent.
+	 */
+	private class TopDown extends RecursiveTask<Long> {
+		private static final long serialVersionUID = 1L;
+		private final int lo, hi;
+
+		TopDown(int lo, int hi) {
+			this.lo = lo;
+			this.hi = hi;
+		}
+
+		@Override
+		protected Long compute() {
+			if (hi - lo > SPLIT) {
+				int mid = (lo + hi) >>> 1;
+				TopDown left = new TopDown(lo, mid);
+				left.fork();
+				long right = new TopDown(mid, hi).compute();
+				return left.join() + right;
+			}
+			long claimed = 0;
+			for (int s = lo; s < hi; s++) {
+				for (long words = frontierSummary[s]; words != 0; words &= words - 1) {
+					int w = (s << 6) + Long.numberOfTrailingZeros(words);
+					long bits = frontier[w];
+					while (bits != 0) {
+						int cell = (w << 6) + Long.numberOfTrailingZeros(bits);
+						bits &= bits - 1;
+						int x = cell % width;
+						int y = cell / width;
+						if (x > 0) claimed += claim(cell - 1, Grid.RIGHT);
+						if (y < height - 1) claimed += claim(cell + width, Grid.UP);
+						if (x < width - 1) claimed += claim(cell + 1, Grid.LEFT);
+						if (y > 0) claimed += claim(cell - width, Grid.DOWN);
+					}
+				}
+			}
+			return claimed;
+		}
+
+		// Claims a neighbour for the next level, backDirection points back at the frontier cell
+		private int claim(int cell, int backDirection) {
+			long mask = 1L << cell;
+			int w = cell >>> 6;
+			if ((grid.wallWord(w) & mask) != 0 || ((long) WORDS.getOpaque(visited, w) & mask) != 0) {
+				return 0;
+			}
+			long before = (long) WORDS.getAndBitwiseOr(visited, w, mask);
+			if ((before & mask) != 0) {
+				return 0; // Another task got there first
+			}
+			back[cell] = (byte) backDirection;
+			if ((long) WORDS.getAndBitwiseOr(next, w, mask) == 0) {
+				WORDS.getAndBitwiseOr(nextSummary, w >>> 6, 1L << w);
+			}
+			return 1;
+		}
+	}
+
+	/**
+	 * Bottom-up step: every unvisited open cell in a candidate word looks for a neighbour in the frontier.
+	 * Tasks own disjoint word ranges, so visited and next are written without atomics.
+	 */
+	private class BottomUp extends RecursiveTask<Long> {
+		private static final long serialVersionUID = 1L;
+		private final int lo, hi;
+
+		BottomUp(int lo, int hi) {
+			this.lo = lo;
+			this.hi = hi;
+		}
+
+		@Override
+		protected Long compute() {
+			if (hi - lo > SPLIT) {
+				int mid = (lo + hi) >>> 1;
+				BottomUp left = new BottomUp(lo, mid);
+				left.fork();
+				long right = new BottomUp(mid, hi).compute();
+				return left.join() + right;
+			}
+			int cells = grid.cells();
+			long found = 0;
+			for (int s = lo; s < hi; s++) {
+				for (long words = candidates[s]; words != 0; words &= words - 1) {
+					int w = (s << 6) + Long.numberOfTrailingZeros(words);
+					long open = ~(grid.wallWord(w) | visited[w]);
+					if (w == ParallelBfs.this.words - 1 && (cells & 63) != 0) {
+						open &= (1L << (cells & 63)) - 1; // Ignore padding bits past the last cell
+					}
+					long claimed = 0;
+					while (open != 0) {
+						int bit = Long.numberOfTrailingZeros(open);
+						open &= open - 1;
+						int cell = (w << 6) + bit;
+						int x = cell % width;
+						int y = cell / width;
+						int dir = -1;
+						if (x > 0 && isSet(frontier, cell - 1)) dir = Grid.LEFT;
+						else if (y < height - 1 && isSet(frontier, cell + width)) dir = Grid.DOWN;
+						else if (x < width - 1 && isSet(frontier, cell + 1)) dir = Grid.RIGHT;
+						else if (y > 0 && isSet(frontier, cell - width)) dir = Grid.UP;
+						if (dir >= 0) {
+							back[cell] = (byte) dir;
+							claimed |= 1L << bit;
+							found++;
+						}
+					}
+					if (claimed != 0) {
+						visited[w] |= claimed;
+						next[w] |= claimed;
+						nextSummary[s] |= 1L << w;
+					}
+				}
+			}
+			return found;
+		}
+	}
+
+	private static boolean isSet(long[] bits, int index) {
+		return (bits[index >>> 6] & (1L << index)) != 0;
+	}
+
+	private static void set(long[] bits, int index) {
+		bits[index >>> 6] |= 1L << index;
+	}
+
+	/**
+	 * Small scaling benchmark: parallel BFS vs the sequential BFS on a random open maze.
+	 * Usage: ParallelBfs [side] [wall density]
+	 */
+	public static void main(String[] args) {
+		int side = args.length > 0 ? Integer.parseInt(args[0]) : 4000;
+		double density = args.length > 1 ? Double.parseDouble(args[1]) : 0.2;
+		Random random = new Random(42);
+		Grid grid = new Grid(side, side);
+		for (int cell = 0; cell < grid.cells(); cell++) {
+			grid.setWall(cell, random.nextDouble() < density);
+		}
+		grid.setWall(0, false);
+		grid.setWall(grid.cells() - 1, false);
+		grid.setStart(0);
+		grid.setTarget(grid.cells() - 1);
+
+		long t0 = System.nanoTime();
+		int expected = grid.bfsDistances(0)[grid.cells() - 1];
+		long t1 = System.nanoTime();
+		System.out.printf("sequential: length %d in %.1f ms%n", expected, (t1 - t0) / 1e6);
+
+		int cores = Runtime.getRuntime().availableProcessors();
+		for (int threads = 1; threads <= cores; threads *= 2) {
+			ForkJoinPool pool = new ForkJoinPool(threads);
+			long start = System.nanoTime();
+			SearchResult result = new ParallelBfs(grid, pool).search(grid.getStart(), grid.getTarget());
+			long end = System.nanoTime();
+			pool.shutdown();
+			System.out.printf("parallel x%d: length %d in %.1f ms%s%n", threads, result.getCost(), (end - start) / 1e6,
+					result.getCost() == expected ? "" : "  MISMATCH");
+		}
+	}
+}
@@ -0,0 +1,91 @@
+import java.util.Arrays;
+
+/**
+ * Reusable per-search scratch memory for the Grid based solvers.
+ * A solver asks the arena for its working arrays instead of allocating them, so solving back to back
+ * allocates nothing proportional to the maze after the first search and leaves no garbage behind.
+ * Arrays only ever grow; they are handed out with at least the requested length.
+ *
+ * Per-cell search state lives in a stamp array instead of being cleared: every search reserves a range
+ * of stamp values above all earlier ones, so a cell whose stamp is below the range is untouched by this
+ * search, whatever older searches left in it. Starting a search is then O(1) whatever the maze size;
+ * the array is only cleared when the stamps wrap around.
+ *
+ * An arena belongs to one search at a time: don't share it between threads.
+ */
+public class ScratchArena {
+
+	private int[] ints = new int[0];
+	private byte[] bytes = new byte[0];
+	private long[] bits = new long[0];
+	private int[] stamps = new int[0];
+	private int firstStamp;			// First stamp value of the current search
+	private int nextStamp = 1;		// First stamp value free for the next search
+	private final IntList list = new IntList();
+	private DialQueue queue;
+
+	// int array of at least size entries, contents left from earlier searches (guard reads with stamps())
+	public int[] ints(int size) {
+		if (ints.length < size) {
+			ints = new int[size];
+		}
+		return ints;
+	}
+
+	/**
+	 * Stamp array of at least size entries, reserving count stamp values for a new search:
+	 * firstStamp() to firstStamp() + count - 1. Every entry is below firstStamp() until the search writes it.
+	 */
+	public int[] stamps(int size, int count) {
+		if (stamps.length < size) {
+			stamps = new int[size];
+			nextStamp = 1;
+		} else if (nextStamp > Integer.MAX_VALUE - count) {
+			Arrays.fill(stamps, 0); // Wrapped around (once every 2^31 stamps)
+			nextStamp = 1;
+		}
+		firstStamp = nextStamp;
+		nextStamp += count;
+		return stamps;
+	}
+
+	// First stamp value reserved by the last stamps() call
+	public int firstStamp() {
+		return firstStamp;
+	}
+
+	// byte array of at least size entries, contents left from earlier searches
+	public byte[] bytes(int size) {
+		if (bytes.length < size) {
+			bytes = new byte[size];
+		}
+		return bytes;
+	}
+
+	// Cleared bitset with room for the given number of bits
+	public long[] bits(int size) {
+		int words = (size + 63) >>> 6;
+		if (bits.length < words) {
+			bits = new long[words];
+		} else {
+			Arrays.fill(bits, 0, words, 0);
+		}
+		return bits;
+	}
+
+	// Empty int list (a stack for the DFS engines)
+	public IntList list() {
+		list.clear();
+		return list;
+	}
+
+	// Empty bucket queue for keys up to maxStep apart
+	public DialQueue queue(int maxStep) {
+		if (queue == null || queue.getMaxStep() != maxStep) {
+			queue = new DialQueue(maxStep);
+		} else {
+			queue.clear();
+		}
+		return queue;
+	}
+}
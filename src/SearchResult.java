@@ -0,0 +1,44 @@
+/**
+ * Outcome of a headless (Grid based) search.
+ * Holds the path as cell indices from start to target, its cost and
+ * how many nodes the solver expanded to find it.
+ */
+public class SearchResult {
+
+	private final int[] path;		// Cell indices from start to target (empty if not found)
+	private final long cost;		// Total path cost (number of moves for unweighted mazes)
+	private final long expansions;	// Nodes expanded by the solver
+
+	public SearchResult(int[] path, long cost, long expansions) {
+		this.path = path;
+		this.cost = cost;
+		this.expansions = expansions;
+	}
+
+	// Result for a search that could not reach the target
+	public static SearchResult notFound(long expansions) {
+		return new SearchResult(new int[0], -1, expansions);
+	}
+
+	public boolean isFound() {
+		return path.length > 0;
+	}
+
+	public int[] getPath() {
+		return path;
+	}
+
+	public long getCost() {
+		return cost;
+	}
+
+	public long getExpansions() {
+		return expansions;
+	}
+
+	@Override
+	public String toString() {
+		return isFound() ? "cost=" + cost + ", length=" + path.length + ", expansions=" + expansions
+				: "not found, expansions=" + expansions;
+	}
+}
@@ -0,0 +1,499 @@
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Localhost solver service, so other processes can solve without the Swing app.
+ * Mazes are loaded once and stay resident by id; queries run the headless solvers on them.
+ *
+ * PUT    /mazes/{id}              body = .maze text; ids are letters, digits, '.', '_' and '-'
+ * DELETE /mazes/{id}
+ * GET    /solve?maze=id&start=x,y&target=x,y[&algorithm=flow|astar|dijkstra|bfs|alt|dfs|auto]
+ * POST   /solve                   body = one query per line: "id startX startY targetX targetY [algorithm]"
+ *
+ * Answers are JSON: {"found":true,"cost":..,"expansions":..,"start":[x,y],"moves":"RRDL.."} (a JSON array for
+ * batches). moves has one letter per step: L = x - 1, R = x + 1, U = y - 1, D = y + 1.
+ *
+ * Concurrent work on a maze is shared: queries with the default "flow" algorithm are answered from one
+ * flow field per (maze, target), so every start heading to a target costs a single search, and identical
+ * queries that are already running wait for the running one instead of searching again. Landmark tables
+ * are also built once per maze. "auto" lets AlgorithmSelector pick per query, counting the work this
+ * maze already has cached.
+ * Each request runs on its own virtual thread when the JVM has them (Java 21+), else on a cached pool.
+ */
+public class SolverServer {
+
+	private static final int MAX_FIELDS = 64;	// Flow fields kept per maze
+	private static final char[] MOVES = { 'L', 'D', 'R', 'U' };	// Indexed by Grid direction
+	private static final Pattern MAZE_ID = Pattern.compile("[A-Za-z0-9._-]+");	// Safe to echo in JSON unescaped
+
+	private final HttpServer server;
+	private final ExecutorService executor;
+	private final Map<String, Maze> mazes = new ConcurrentHashMap<>();
+	private final AtomicLong queries = new AtomicLong();
+
+	// A resident maze and the work shared between its queries
+	private static class Maze {
+		final Grid grid;
+		final Map<Integer, CompletableFuture<FlowField>> fields = new ConcurrentHashMap<>();
+		final Map<String, CompletableFuture<SearchResult>> running = new ConcurrentHashMap<>();
+		final Queue<ScratchArena> arenas = new ConcurrentLinkedQueue<>();	// Idle search memory, at most one per concurrent search
+		final Queue<ParallelBfs> bfs = new ConcurrentLinkedQueue<>();		// Idle BFS bitmaps, same
+		volatile CompletableFuture<Landmarks> landmarks;
+		volatile String lastChoice;		// Last algorithm "auto" picked (to log only changes)
+
+		Maze(Grid grid) {
+			this.grid = grid;
+		}
+	}
+
+	public SolverServer(int port) throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+		executor = newRequestExecutor();
+		server.setExecutor(executor);
+		server.createContext("/mazes/", this::handleMaze);
+		server.createContext("/solve", this::handleSolve);
+	}
+
+	/**
+	 * Executors.newVirtualThreadPerTaskExecutor() if this JVM has it, else a cached thread pool.
+	 * Looked up reflectively so the project still builds for Java 14.
+	 */
+	static ExecutorService newRequestExecutor() {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (ReflectiveOperationException e) {
+			return Executors.newCachedThreadPool();
+		}
+	}
+
+	public void start() {
+		server.start();
+	}
+
+	public void stop() {
+		server.stop(0);
+		executor.shutdown();
+	}
+
+	public int getPort() {
+		return server.getAddress().getPort();
+	}
+
+	public long getQueryCount() {
+		return queries.get();
+	}
+
+	// Makes a maze resident under id (replacing any previous one)
+	public void putMaze(String id, Grid grid) {
+		checkId(id);
+		mazes.put(id, new Maze(grid));
+	}
+
+	/**
+	 * Solves one query. Safe to call from many threads at once.
+	 */
+	public SearchResult solve(String mazeId, int start, int target, String algorithm) {
+		Maze maze = mazes.get(mazeId);
+		if (maze == null) {
+			throw new IllegalArgumentException("Unknown maze: " + mazeId);
+		}
+		Grid grid = maze.grid;
+		if (start < 0 || start >= grid.cells() || target < 0 || target >= grid.cells()) {
+			throw new IllegalArgumentException("Start or target outside the maze");
+		}
+		queries.incrementAndGet();
+		if (algorithm.equals("auto")) {
+			algorithm = select(mazeId, maze, start, target);
+		}
+		if (algorithm.equals("flow")) {
+			return join(field(maze, target)).path(start);
+		}
+
+		// Identical queries share one search
+		String key = algorithm + ":" + start + ":" + target;
+		CompletableFuture<SearchResult> mine = new CompletableFuture<>();
+		CompletableFuture<SearchResult> shared = maze.running.putIfAbsent(key, mine);
+		if (shared != null) {
+			return join(shared);
+		}
+		try {
+			mine.complete(search(maze, start, target, algorithm));
+		} catch (RuntimeException e) {
+			mine.completeExceptionally(e);
+		} finally {
+			maze.running.remove(key);
+		}
+		return join(mine);
+	}
+
+	// Algorithm name AlgorithmSelector picks for a query, logged whenever a maze's pick changes
+	private String select(String mazeId, Maze maze, int start, int target) {
+		CompletableFuture<FlowField> field = maze.fields.get(target);
+		CompletableFuture<Landmarks> tables = maze.landmarks;
+		AlgorithmSelector.Choice choice = AlgorithmSelector.choose(AlgorithmSelector.profile(maze.grid, start, target,
+				field != null && field.isDone(), tables != null && tables.isDone()));
+		String algorithm;
+		switch (choice.getAlgorithm()) {
+		case GridView.FLOW_FIELD:
+			algorithm = "flow";
+			break;
+		case GridView.ALT:
+			algorithm = "alt";
+			break;
+		case GridView.DIJKSTRA:
+			algorithm = "dijkstra";
+			break;
+		case GridView.BFS:
+			algorithm = "bfs";
+			break;
+		default:
+			algorithm = "astar";
+			break;
+		}
+		if (!algorithm.equals(maze.lastChoice)) {
+			maze.lastChoice = algorithm;
+			System.out.println("Maze " + mazeId + ": " + choice);
+		}
+		return algorithm;
+	}
+
+	// Runs a search with an arena borrowed from the maze, so repeated queries reuse their working arrays
+	private SearchResult search(Maze maze, int start, int target, String algorithm) {
+		Grid grid = maze.grid;
+		ScratchArena arena = maze.arenas.poll();
+		if (arena == null) {
+			arena = new ScratchArena();
+		}
+		try {
+			switch (algorithm) {
+			case "astar":
+				return WeightedSearch.search(grid, start, target, Heuristic.manhattan(grid), arena);
+			case "dijkstra":
+				return WeightedSearch.search(grid, start, target, Heuristic.none(), arena);
+			case "bfs":
+				ParallelBfs search = maze.bfs.poll();
+				if (search == null) {
+					search = new ParallelBfs(grid, ForkJoinPool.commonPool());
+				}
+				try {
+					return search.search(start, target);
+				} finally {
+					maze.bfs.offer(search);
+				}
+			case "alt":
+				return WeightedSearch.search(grid, start, target, join(landmarks(maze)), arena);
+			case "dfs":
+				return new IterativeDfs(grid).dfs(start, target, null, arena);
+			default:
+				throw new IllegalArgumentException("Unknown algorithm: " + algorithm);
+			}
+		} finally {
+			maze.arenas.offer(arena);
+		}
+	}
+
+	// Flow field towards target, computed by the first query that needs it
+	private CompletableFuture<FlowField> field(Maze maze, int target) {
+		CompletableFuture<FlowField> field = maze.fields.get(target);
+		if (field != null) {
+			return field;
+		}
+		if (maze.fields.size() >= MAX_FIELDS) {
+			maze.fields.clear();
+		}
+		CompletableFuture<FlowField> mine = new CompletableFuture<>();
+		field = maze.fields.putIfAbsent(target, mine);
+		if (field != null) {
+			return field;
+		}
+		try {
+			mine.complete(FlowField.forTarget(maze.grid, target));
+		} catch (RuntimeException e) {
+			maze.fields.remove(target);
+			mine.completeExceptionally(e);
+		}
+		return mine;
+	}
+
+	private CompletableFuture<Landmarks> landmarks(Maze maze) {
+		CompletableFuture<Landmarks> tables = maze.landmarks;
+		if (tables != null) {
+			return tables;
+		}
+		synchronized (maze) {
+			if (maze.landmarks == null) {
+				maze.landmarks = CompletableFuture.supplyAsync(() -> Landmarks.compute(maze.grid, Landmarks.DEFAULT_COUNT),
+						executor);
+			}
+			return maze.landmarks;
+		}
+	}
+
+	private static <T> T join(CompletableFuture<T> future) {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+
+	private void handleMaze(HttpExchange exchange) throws IOException {
+		try {
+			String id = exchange.getRequestURI().getPath().substring("/mazes/".length());
+			checkId(id);
+			switch (exchange.getRequestMethod()) {
+			case "PUT":
+			case "POST":
+				Grid grid = Grid.parse(readLines(exchange));
+				putMaze(id, grid);
+				reply(exchange, 200, "{\"id\":\"" + id + "\",\"width\":" + grid.getWidth() + ",\"height\":"
+						+ grid.getHeight() + "}");
+				break;
+			case "DELETE":
+				reply(exchange, mazes.remove(id) != null ? 200 : 404, "{\"id\":\"" + id + "\"}");
+				break;
+			default:
+				reply(exchange, 405, "{\"error\":\"method not allowed\"}");
+				break;
+			}
+		} catch (IOException | RuntimeException e) {
+			reply(exchange, 400, error(e));
+		}
+	}
+
+	private void handleSolve(HttpExchange exchange) throws IOException {
+		try {
+			if (exchange.getRequestMethod().equals("POST")) {
+				// Batch: one query per line, answered in order
+				String[] lines = new String(readBody(exchange), StandardCharsets.UTF_8).split("\n");
+				StringBuilder out = new StringBuilder("[");
+				for (String line : lines) {
+					line = line.trim();
+					if (line.isEmpty()) continue;
+					String[] parts = line.split("\\s+");
+					Maze maze = mazes.get(parts[0]);
+					if (maze == null || parts.length < 5) {
+						throw new IllegalArgumentException("Bad query: " + line);
+					}
+					Grid grid = maze.grid;
+					int start = cell(grid, parts[1], parts[2]);
+					int target = cell(grid, parts[3], parts[4]);
+					SearchResult result = solve(parts[0], start, target, parts.length > 5 ? parts[5] : "flow");
+					if (out.length() > 1) out.append(',');
+					json(out, grid, result);
+				}
+				reply(exchange, 200, out.append(']').toString());
+			} else {
+				Map<String, String> params = query(exchange.getRequestURI());
+				String id = params.get("maze");
+				Maze maze = id == null ? null : mazes.get(id);
+				if (maze == null) {
+					reply(exchange, 404, "{\"error\":\"unknown maze\"}");
+					return;
+				}
+				int start = cell(maze.grid, params.get("start"));
+				int target = cell(maze.grid, params.get("target"));
+				SearchResult result = solve(id, start, target, params.getOrDefault("algorithm", "flow"));
+				StringBuilder out = new StringBuilder();
+				json(out, maze.grid, result);
+				reply(exchange, 200, out.toString());
+			}
+		} catch (IOException | RuntimeException e) {
+			reply(exchange, 400, error(e));
+		}
+	}
+
+	// "x,y"
+	private static int cell(Grid grid, String xy) {
+		if (xy == null) {
+			throw new IllegalArgumentException("Missing start or target");
+		}
+		int comma = xy.indexOf(',');
+		return cell(grid, xy.substring(0, comma), xy.substring(comma + 1));
+	}
+
+	private static int cell(Grid grid, String x, String y) {
+		int cx = Integer.parseInt(x.trim());
+		int cy = Integer.parseInt(y.trim());
+		if (cx < 0 || cy < 0 || cx >= grid.getWidth() || cy >= grid.getHeight()) {
+			throw new IllegalArgumentException("Cell outside the maze: " + cx + "," + cy);
+		}
+		return grid.index(cx, cy);
+	}
+
+	private static void json(StringBuilder out, Grid grid, SearchResult result) {
+		out.append("{\"found\":").append(result.isFound());
+		if (result.isFound()) {
+			out.append(",\"cost\":").append(result.getCost());
+		}
+		out.append(",\"expansions\":").append(result.getExpansions());
+		if (result.isFound()) {
+			// Path as the start cell plus one letter per move (L, D, R, U), much smaller than a list of cells
+			int[] path = result.getPath();
+			out.append(",\"start\":[").append(grid.x(path[0])).append(',').append(grid.y(path[0])).append("],\"moves\":\"");
+			for (int i = 1; i < path.length; i++) {
+				out.append(MOVES[grid.direction(path[i - 1], path[i])]);
+			}
+			out.append('"');
+		}
+		out.append('}');
+	}
+
+	// Maze ids end up in JSON answers and log lines, so only plain names are accepted
+	private static void checkId(String id) {
+		if (!MAZE_ID.matcher(id).matches()) {
+			throw new IllegalArgumentException("Bad maze id (use letters, digits, '.', '_' and '-'): " + id);
+		}
+	}
+
+	private static String error(Exception e) {
+		String message = String.valueOf(e.getMessage()).replace("\\", "\\\\").replace("\"", "\\\"");
+		return "{\"error\":\"" + message + "\"}";
+	}
+
+	private static Map<String, String> query(URI uri) {
+		Map<String, String> params = new HashMap<>();
+		String raw = uri.getQuery();
+		if (raw == null) {
+			return params;
+		}
+		for (String pair : raw.split("&")) {
+			int equals = pair.indexOf('=');
+			if (equals > 0) {
+				params.put(pair.substring(0, equals), pair.substring(equals + 1));
+			}
+		}
+		return params;
+	}
+
+	private static byte[] readBody(HttpExchange exchange) throws IOException {
+		try (InputStream in = exchange.getRequestBody()) {
+			return in.readAllBytes();
+		}
+	}
+
+	// Non-empty lines of the body, as Grid.parse takes them
+	private static List<String> readLines(HttpExchange exchange) throws IOException {
+		List<String> lines = new ArrayList<>();
+		try (BufferedReader reader = new BufferedReader(
+				new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8))) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (!line.isEmpty()) lines.add(line);
+			}
+		}
+		return lines;
+	}
+
+	private static void reply(HttpExchange exchange, int status, String body) throws IOException {
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "application/json");
+		exchange.sendResponseHeaders(status, bytes.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(bytes);
+		}
+	}
+
+	/**
+	 * Usage: SolverServer [port] (default 8765), or SolverServer bench [clients] [seconds]
+	 * The benchmark serves a generated maze on a free port and fires batched flow queries at it.
+	 */
+	public static void main(String[] args) throws Exception {
+		if (args.length > 0 && args[0].equals("bench")) {
+			bench(args.length > 1 ? Integer.parseInt(args[1]) : 8, args.length > 2 ? Integer.parseInt(args[2]) : 5);
+			return;
+		}
+		SolverServer server = new SolverServer(args.length > 0 ? Integer.parseInt(args[0]) : 8765);
+		server.start();
+		System.out.println("Solver service on http://127.0.0.1:" + server.getPort());
+	}
+
+	private static void bench(int clients, int seconds) throws Exception {
+		SolverServer server = new SolverServer(0);
+		Grid grid = MazeGenerator.perfect(501, 501, 1);
+		server.putMaze("bench", grid);
+		server.start();
+		URL url = new URL("http://127.0.0.1:" + server.getPort() + "/solve");
+
+		// Batches of 100 queries from random starts to a handful of targets
+		List<String> batches = new ArrayList<>();
+		Random random = new Random(3);
+		for (int b = 0; b < 64; b++) {
+			StringBuilder batch = new StringBuilder();
+			for (int q = 0; q < 100; q++) {
+				int target = grid.index(499 - 2 * random.nextInt(4), 499);
+				batch.append("bench ").append(1 + 2 * random.nextInt(250)).append(' ').append(1 + 2 * random.nextInt(250))
+						.append(' ').append(grid.x(target)).append(' ').append(grid.y(target)).append('\n');
+			}
+			batches.add(batch.toString());
+		}
+
+		long end = System.currentTimeMillis() + seconds * 1000L;
+		long warm = server.getQueryCount();
+		long startTime = System.currentTimeMillis();
+		Thread[] threads = new Thread[clients];
+		for (int t = 0; t < clients; t++) {
+			int offset = t;
+			threads[t] = new Thread(() -> {
+				int i = offset;
+				try {
+					while (System.currentTimeMillis() < end) {
+						HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+						connection.setRequestMethod("POST");
+						connection.setDoOutput(true);
+						try (OutputStream out = connection.getOutputStream()) {
+							out.write(batches.get(i++ % batches.size()).getBytes(StandardCharsets.UTF_8));
+						}
+						try (InputStream in = connection.getInputStream()) {
+							in.transferTo(new ByteArrayOutputStream());
+						}
+					}
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+			});
+			threads[t].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		long elapsed = System.currentTimeMillis() - startTime;
+		long served = server.getQueryCount() - warm;
+		System.out.printf("%d clients, 501x501 maze: %d queries in %d ms (%.0f queries/s)%n", clients, served, elapsed,
+				served * 1000.0 / elapsed);
+		server.stop();
+	}
+}
@@ -0,0 +1,366 @@
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Pan / zoom viewport with level-of-detail rendering for large boards.
+ * Works in the board's "world" pixel space (cell i starts at 15 + i * 35, as laid out by Node) and
+ * only ever touches the cells that are on screen:
+ * - zoomed in (cells at least DETAIL_PIXELS wide): every visible cell is drawn in full by the source,
+ * - medium zoom: one pixel per visible cell is written into a scratch image which is scaled up,
+ * - zoomed out (cells under a pixel): cached mipmap tiles, each pixel the average color of a 2^k x 2^k block,
+ *   so walls and searched cells show up as density. A change only rebuilds the tiles over the blocks
+ *   the source reports as changed.
+ */
+public class Viewport {
+
+	/**
+	 * What the viewport draws. rgb() is the flat color of a cell, renderCell() draws it in full detail
+	 * in world coordinates, version() must change whenever cell colors change.
+	 */
+	public interface Source {
+		/**
+		 * Version at which cells of the BLOCK x BLOCK block (blockX, blockY) last changed (at most version()).
+		 * The default reports every change as touching every block.
+		 */
+		default long version(int blockX, int blockY) {
+			return version();
+		}
+
+		int getColumns();
+
+		int getRows();
+
+		int rgb(int x, int y);
+
+		void renderCell(Graphics2D g, int x, int y);
+
+		long version();
+	}
+
+	public static final int CELL = 35;				// World size of a cell, matches Node
+	public static final int MARGIN = 15;			// World offset of cell (0, 0), matches Node
+	public static final int BLOCK = 512;			// Cells per side of a change block, the cells of one level 1 tile
+	private static final double DETAIL_PIXELS = 12;	// Screen size from which cells are drawn in full
+	private static final int TILE = 256;			// Mipmap tile size in pixels
+	private static final int DIRECT_LEVELS = 2;		// Levels up to here are built straight from the cells
+	private static final int MAX_TILES = 256;		// Cached tiles (256 KB each)
+	private static final long REBUILD_MILLIS = 250;	// Minimum time between tile rebuilds while cells keep changing
+	private static final int TILE_LEVEL = 1;		// Finest mipmap level (a tile covers BLOCK cells per side)
+	private static final int BACKGROUND = Color.WHITE.getRGB();
+
+	private final int screenWidth;
+	private final int screenHeight;
+	private double zoom = 1;		// Screen pixels per world pixel
+	private double originX;			// World position shown at the screen's top-left corner
+	private double originY;
+
+	// Mipmap tile cache, least recently used tiles are dropped first
+	private final Map<Long, Tile> tiles = new LinkedHashMap<Long, Tile>(MAX_TILES, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Long, Tile> eldest) {
+			return size() > MAX_TILES;
+		}
+	};
+	private Source tileSource;
+	private long lastRebuild;
+	private boolean refresh;		// This frame may rebuild tiles whose blocks changed
+	private boolean rebuilt;		// This frame rebuilt a changed tile
+	private BufferedImage raster;	// Scratch image for the medium zoom mode
+	private Tile blank;				// Shared tile for mipmap tiles wholly outside the board
+	private int boardColumns;		// Board size of the last render, bounds how far zoom() goes out
+	private int boardRows;
+
+	// A cached mipmap tile and the source version it shows
+	private static class Tile {
+		final BufferedImage image;
+		final long version;
+
+		Tile(BufferedImage image, long version) {
+			this.image = image;
+			this.version = version;
+		}
+	}
+
+	public Viewport(int screenWidth, int screenHeight) {
+		this.screenWidth = screenWidth;
+		this.screenHeight = screenHeight;
+	}
+
+	// Draws the visible part of the source
+	public synchronized void render(Graphics2D g, Source source) {
+		g.setColor(Color.WHITE);
+		g.fillRect(0, 0, screenWidth, screenHeight);
+		boardColumns = source.getColumns();
+		boardRows = source.getRows();
+
+		double cellPixels = CELL * zoom;
+		if (cellPixels >= DETAIL_PIXELS) {
+			renderDetail(g, source);
+		} else if (cellPixels >= 1) {
+			renderRaster(g, source);
+		} else {
+			renderTiles(g, source, cellPixels);
+		}
+	}
+
+	private void renderDetail(Graphics2D g, Source source) {
+		int x0 = firstColumn(source);
+		int x1 = lastColumn(source);
+		int y0 = firstRow(source);
+		int y1 = lastRow(source);
+		AffineTransform saved = g.getTransform();
+		g.scale(zoom, zoom);
+		g.translate(-originX, -originY);
+		for (int x = x0; x <= x1; x++) {
+			for (int y = y0; y <= y1; y++) {
+				source.renderCell(g, x, y);
+			}
+		}
+		g.setTransform(saved);
+	}
+
+	private void renderRaster(Graphics2D g, Source source) {
+		int x0 = firstColumn(source);
+		int x1 = lastColumn(source);
+		int y0 = firstRow(source);
+		int y1 = lastRow(source);
+		if (x1 < x0 || y1 < y0) return;
+		int w = x1 - x0 + 1;
+		int h = y1 - y0 + 1;
+		if (raster == null || raster.getWidth() < w || raster.getHeight() < h) {
+			raster = new BufferedImage(Math.max(w, 64), Math.max(h, 64), BufferedImage.TYPE_INT_RGB);
+		}
+		int[] pixels = ((DataBufferInt) raster.getRaster().getDataBuffer()).getData();
+		int stride = raster.getWidth();
+		for (int y = 0; y < h; y++) {
+			for (int x = 0; x < w; x++) {
+				pixels[y * stride + x] = source.rgb(x0 + x, y0 + y);
+			}
+		}
+		g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+		g.drawImage(raster, screenX(x0), screenY(y0), screenX(x1 + 1), screenY(y1 + 1), 0, 0, w, h, null);
+	}
+
+	private void renderTiles(Graphics2D g, Source source, double cellPixels) {
+		int level = Math.max(TILE_LEVEL, (int) Math.ceil(Math.log(1 / cellPixels) / Math.log(2)));
+		long now = System.currentTimeMillis();
+		if (source != tileSource) {
+			tiles.clear();
+			tileSource = source;
+		}
+		// Tiles over changed blocks are rebuilt at most every REBUILD_MILLIS while cells keep changing
+		refresh = now - lastRebuild >= REBUILD_MILLIS;
+		rebuilt = false;
+
+		int span = TILE << level; // Cells covered by one tile side
+		int tx0 = Math.max(0, firstColumn(source) / span);
+		int tx1 = lastColumn(source) / span;
+		int ty0 = Math.max(0, firstRow(source) / span);
+		int ty1 = lastRow(source) / span;
+		g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+		for (int tx = tx0; tx <= tx1; tx++) {
+			for (int ty = ty0; ty <= ty1; ty++) {
+				BufferedImage tile = tile(source, level, tx, ty).image;
+				g.drawImage(tile, screenX(tx * span), screenY(ty * span), screenX((tx + 1) * span),
+						screenY((ty + 1) * span), 0, 0, TILE, TILE, null);
+			}
+		}
+		if (rebuilt) {
+			lastRebuild = now;
+		}
+	}
+
+	// Tile (tx, ty) of a mipmap level; pixel (i, j) averages the 2^level square of cells it covers
+	private Tile tile(Source source, int level, int tx, int ty) {
+		long span = (long) TILE << level;
+		if (tx * span >= source.getColumns() || ty * span >= source.getRows()) {
+			return blank(); // Nothing of the board in it, no need to build the levels below
+		}
+		long key = ((long) level << 56) | ((long) tx << 28) | ty;
+		Tile cached = tiles.get(key);
+		if (cached != null && (!refresh || !changed(source, level, tx, ty, cached.version))) {
+			return cached;
+		}
+		if (cached != null) {
+			rebuilt = true;
+		}
+		long version = source.version(); // Read first: changes made while building leave the tile stale
+		BufferedImage tile = cached != null ? cached.image : new BufferedImage(TILE, TILE, BufferedImage.TYPE_INT_RGB);
+		int[] pixels = ((DataBufferInt) tile.getRaster().getDataBuffer()).getData();
+		if (level <= DIRECT_LEVELS) {
+			int block = 1 << level;
+			int baseX = tx * TILE * block;
+			int baseY = ty * TILE * block;
+			for (int j = 0; j < TILE; j++) {
+				for (int i = 0; i < TILE; i++) {
+					pixels[j * TILE + i] = averageBlock(source, baseX + i * block, baseY + j * block, block);
+				}
+			}
+		} else {
+			// Downsample the four tiles of the finer level
+			for (int quadrant = 0; quadrant < 4; quadrant++) {
+				int qx = quadrant & 1;
+				int qy = quadrant >> 1;
+				Tile child = tile(source, level - 1, tx * 2 + qx, ty * 2 + qy);
+				version = Math.min(version, child.version); // A child may be kept stale while rebuilds are throttled
+				int[] src = ((DataBufferInt) child.image.getRaster().getDataBuffer()).getData();
+				for (int j = 0; j < TILE / 2; j++) {
+					for (int i = 0; i < TILE / 2; i++) {
+						int s = (j * 2) * TILE + i * 2;
+						pixels[(qy * TILE / 2 + j) * TILE + qx * TILE / 2 + i] = average(src[s], src[s + 1],
+								src[s + TILE], src[s + TILE + 1]);
+					}
+				}
+			}
+		}
+		cached = new Tile(tile, version);
+		tiles.put(key, cached);
+		return cached;
+	}
+
+	// True if a block under tile (tx, ty) of the level changed after version
+	private static boolean changed(Source source, int level, int tx, int ty, long version) {
+		if (source.version() == version) {
+			return false;
+		}
+		int blocks = 1 << (level - TILE_LEVEL); // Blocks per tile side
+		int bx1 = Math.min((tx + 1) * blocks, (source.getColumns() + BLOCK - 1) / BLOCK);
+		int by1 = Math.min((ty + 1) * blocks, (source.getRows() + BLOCK - 1) / BLOCK);
+		for (int bx = tx * blocks; bx < bx1; bx++) {
+			for (int by = ty * blocks; by < by1; by++) {
+				if (source.version(bx, by) > version) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private Tile blank() {
+		if (blank == null) {
+			BufferedImage image = new BufferedImage(TILE, TILE, BufferedImage.TYPE_INT_RGB);
+			Arrays.fill(((DataBufferInt) image.getRaster().getDataBuffer()).getData(), BACKGROUND);
+			blank = new Tile(image, Long.MAX_VALUE); // Never changes
+		}
+		return blank;
+	}
+
+	// Average color of a block of cells, the part outside the board counted as background
+	private static int averageBlock(Source source, int x0, int y0, int block) {
+		int x1 = Math.min(x0 + block, source.getColumns());
+		int y1 = Math.min(y0 + block, source.getRows());
+		int n = block * block;
+		int outside = n - Math.max(0, x1 - x0) * Math.max(0, y1 - y0);
+		long r = (long) outside * ((BACKGROUND >> 16) & 0xff);
+		long g = (long) outside * ((BACKGROUND >> 8) & 0xff);
+		long b = (long) outside * (BACKGROUND & 0xff);
+		for (int y = y0; y < y1; y++) {
+			for (int x = x0; x < x1; x++) {
+				int rgb = source.rgb(x, y);
+				r += (rgb >> 16) & 0xff;
+				g += (rgb >> 8) & 0xff;
+				b += rgb & 0xff;
+			}
+		}
+		return (int) (r / n) << 16 | (int) (g / n) << 8 | (int) (b / n);
+	}
+
+	private static int average(int a, int b, int c, int d) {
+		int r = (((a >> 16) & 0xff) + ((b >> 16) & 0xff) + ((c >> 16) & 0xff) + ((d >> 16) & 0xff)) >> 2;
+		int g = (((a >> 8) & 0xff) + ((b >> 8) & 0xff) + ((c >> 8) & 0xff) + ((d >> 8) & 0xff)) >> 2;
+		int bl = ((a & 0xff) + (b & 0xff) + (c & 0xff) + (d & 0xff)) >> 2;
+		return r << 16 | g << 8 | bl;
+	}
+
+	// Draws a translucent color over an opaque one (null = nothing on top)
+	public static int blend(int rgb, Color over) {
+		if (over == null) {
+			return rgb;
+		}
+		int a = over.getAlpha();
+		int r = (((rgb >> 16) & 0xff) * (255 - a) + over.getRed() * a) / 255;
+		int g = (((rgb >> 8) & 0xff) * (255 - a) + over.getGreen() * a) / 255;
+		int b = ((rgb & 0xff) * (255 - a) + over.getBlue() * a) / 255;
+		return r << 16 | g << 8 | b;
+	}
+
+	// Visible cell range, clamped to the board
+	private int firstColumn(Source source) {
+		return Math.max(0, (int) Math.floor((originX - MARGIN) / CELL));
+	}
+
+	private int lastColumn(Source source) {
+		return Math.min(source.getColumns() - 1, (int) Math.floor((originX + screenWidth / zoom - MARGIN) / CELL));
+	}
+
+	private int firstRow(Source source) {
+		return Math.max(0, (int) Math.floor((originY - MARGIN) / CELL));
+	}
+
+	private int lastRow(Source source) {
+		return Math.min(source.getRows() - 1, (int) Math.floor((originY + screenHeight / zoom - MARGIN) / CELL));
+	}
+
+	// Screen position of the left / top edge of a cell column / row
+	private int screenX(int column) {
+		return (int) Math.round((MARGIN + (double) column * CELL - originX) * zoom);
+	}
+
+	private int screenY(int row) {
+		return (int) Math.round((MARGIN + (double) row * CELL - originY) * zoom);
+	}
+
+	// Screen to world coordinates (what Node positions are expressed in)
+	public synchronized int toWorldX(int screenX) {
+		return (int) Math.floor(screenX / zoom + originX);
+	}
+
+	public synchronized int toWorldY(int screenY) {
+		return (int) Math.floor(screenY / zoom + originY);
+	}
+
+	// Zooms by factor while keeping the world point under (screenX, screenY) in place
+	public synchronized void zoom(double factor, int screenX, int screenY) {
+		double worldX = screenX / zoom + originX;
+		double worldY = screenY / zoom + originY;
+		zoom = Math.max(fitZoom(boardColumns, boardRows), Math.min(8, zoom * factor));
+		originX = worldX - screenX / zoom;
+		originY = worldY - screenY / zoom;
+	}
+
+	// Moves the view by a screen distance
+	public synchronized void pan(int dx, int dy) {
+		originX -= dx / zoom;
+		originY -= dy / zoom;
+	}
+
+	// Default 1:1 view (the classic 35px board)
+	public synchronized void reset() {
+		zoom = 1;
+		originX = 0;
+		originY = 0;
+	}
+
+	// Zooms out (never in) so a whole board of the given size fits on screen
+	public synchronized void fit(int columns, int rows) {
+		zoom = fitZoom(columns, rows);
+		originX = 0;
+		originY = 0;
+	}
+
+	// Zoom at which the whole board just fits on screen, but never above 1:1; also the furthest zoom() goes out
+	private double fitZoom(int columns, int rows) {
+		double worldWidth = 2 * MARGIN + (double) columns * CELL;
+		double worldHeight = 2 * MARGIN + (double) rows * CELL;
+		return Math.min(1, Math.min(screenWidth / worldWidth, screenHeight / worldHeight));
+	}
+}
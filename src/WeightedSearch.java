@@ -0,0 +1,87 @@
+/**
+ * Dijkstra and A* over a Grid with per-cell terrain costs.
+ * The open list is a Dial bucket queue (costs are small integers) and parents are stored as one direction
+ * byte per cell. Which cells are reached or closed is kept in ScratchArena stamps, so a search never clears
+ * its arrays and costs time for the cells it touches only (about 9 bytes per cell of reused memory).
+ */
+public class WeightedSearch {
+
+	// Shortest start-end path using Dijkstra
+	public static SearchResult dijkstra(Grid grid) {
+		return search(grid, grid.getStart(), grid.getTarget(), Heuristic.none());
+	}
+
+	// Shortest start-end path using A* with the weight-aware Manhattan heuristic
+	public static SearchResult astar(Grid grid) {
+		return search(grid, grid.getStart(), grid.getTarget(), Heuristic.manhattan(grid));
+	}
+
+	/**
+	 * A* from source to goal. Cost of a move is the cost of the cell moved onto.
+	 * The heuristic must be consistent and change by at most the grid's max cost per move,
+	 * which keeps every key inside the bucket queue window.
+	 * Allocates its working arrays: callers that solve repeatedly pass their own arena instead.
+	 */
+	public static SearchResult search(Grid grid, int source, int goal, Heuristic heuristic) {
+		return search(grid, source, goal, heuristic, new ScratchArena());
+	}
+
+	/**
+	 * Same search with its working arrays taken from arena, so back-to-back searches reuse them.
+	 */
+	public static SearchResult search(Grid grid, int source, int goal, Heuristic heuristic, ScratchArena arena) {
+		if (source < 0 || goal < 0 || grid.isWall(source) || grid.isWall(goal)) {
+			return SearchResult.notFound(0);
+		}
+
+		int cells = grid.cells();
+		int[] dist = arena.ints(cells);				// Valid where state >= reached
+		byte[] back = arena.bytes(cells);			// Direction from each cell back to its parent
+		int[] state = arena.stamps(cells, 2);
+		int reached = arena.firstStamp();			// dist set this search
+		int closed = reached + 1;					// Expanded this search
+
+		DialQueue open = arena.queue(2 * grid.getMaxCost());
+		state[source] = reached;
+		dist[source] = 0;
+		open.push(heuristic.estimate(source, goal), source);
+
+		int[] around = new int[4];
+		long expansions = 0;
+		while (!open.isEmpty()) {
+			int cell = open.pop();
+			if (state[cell] == closed) continue; // Stale entry
+			state[cell] = closed;
+			expansions++;
+
+			if (cell == goal) {
+				return new SearchResult(path(grid, back, source, goal), dist[goal], expansions);
+			}
+
+			int count = grid.neighbours(cell, around);
+			for (int n = 0; n < count; n++) {
+				int next = around[n];
+				if (state[next] == closed) continue;
+				int candidate = dist[cell] + grid.cost(next);
+				if (state[next] != reached || candidate < dist[next]) {
+					state[next] = reached;
+					dist[next] = candidate;
+					back[next] = (byte) grid.direction(next, cell);
+					open.push(Math.max(candidate + heuristic.estimate(next, goal), open.currentKey()), next);
+				}
+			}
+		}
+		return SearchResult.notFound(expansions);
+	}
+
+	// Follows the direction bytes from goal back to source
+	static int[] path(Grid grid, byte[] back, int source, int goal) {
+		IntList path = new IntList();
+		for (int cell = goal; cell != source; cell = grid.move(cell, back[cell])) {
+			path.add(cell);
+		}
+		path.add(source);
+		path.reverse();
+		return path.toArray();
+	}
+}